@@ -0,0 +1,125 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Update throughput of ConcurrentInventory against Main behind one global lock, from 1 to 64 threads.
+// The first table measures addOrUpdateItem on random pre-loaded items, keeping their category.
+// The second measures lock-free adjustQuantity/tryDecrement pairs on a handful of hot SKUs.
+// Usage: java ConcurrentInventoryBenchmark [items] [categories] [secondsPerRun]
+public class ConcurrentInventoryBenchmark
+{
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int HOT_SKUS = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int categories = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+
+        String[] ids = new String[items];
+        String[] categoryOf = new String[items];
+        for (int i = 0; i < items; i++) {
+            ids[i] = Integer.toString(i);
+            categoryOf[i] = "Category-" + (i % categories);
+        }
+
+        ConcurrentInventory concurrent = new ConcurrentInventory();
+        Main locked = new Main();
+        for (int i = 0; i < items; i++) {
+            concurrent.addOrUpdateItem(ids[i], "Item " + i, categoryOf[i], 100);
+            locked.addOrUpdateItem(ids[i], "Item " + i, categoryOf[i], 100);
+        }
+
+        System.out.printf("%d items, %d categories, %.1fs per run, %d cores%n",
+                items, categories, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %20s %20s%n", "threads", "concurrent ops/s", "global lock ops/s");
+
+        for (int threads : THREAD_COUNTS) {
+            // Warm up both paths before each measured run
+            run(threads, seconds / 4, i -> concurrent.addOrUpdateItem(ids[i], "Item", categoryOf[i], nextQuantity()), items);
+            double concurrentRate = run(threads, seconds,
+                    i -> concurrent.addOrUpdateItem(ids[i], "Item", categoryOf[i], nextQuantity()), items);
+
+            run(threads, seconds / 4, i -> updateLocked(locked, ids[i], categoryOf[i]), items);
+            double lockedRate = run(threads, seconds, i -> updateLocked(locked, ids[i], categoryOf[i]), items);
+
+            System.out.printf("%8d %20.0f %20.0f%n", threads, concurrentRate, lockedRate);
+        }
+
+        // Hot SKUs: every thread sells and restocks the same few items
+        int hot = Math.min(HOT_SKUS, items);
+        System.out.printf("%n%d hot SKUs, one adjustQuantity or tryDecrement per op%n", hot);
+        System.out.printf("%8s %20s %20s%n", "threads", "concurrent ops/s", "global lock ops/s");
+        for (int threads : THREAD_COUNTS) {
+            run(threads, seconds / 4, i -> adjustConcurrent(concurrent, ids[i % hot]), items);
+            double concurrentRate = run(threads, seconds, i -> adjustConcurrent(concurrent, ids[i % hot]), items);
+
+            run(threads, seconds / 4, i -> adjustLocked(locked, ids[i % hot]), items);
+            double lockedRate = run(threads, seconds, i -> adjustLocked(locked, ids[i % hot]), items);
+
+            System.out.printf("%8d %20.0f %20.0f%n", threads, concurrentRate, lockedRate);
+        }
+    }
+
+    private static void adjustConcurrent(ConcurrentInventory inventory, String id) {
+        if (!inventory.tryDecrement(id, 1)) {
+            inventory.adjustQuantity(id, 1_000);
+        }
+    }
+
+    private static void adjustLocked(Main inventory, String id) {
+        synchronized (inventory) {
+            if (!inventory.tryDecrement(id, 1)) {
+                inventory.adjustQuantity(id, 1_000);
+            }
+        }
+    }
+
+    private interface Operation {
+        void apply(int index);
+    }
+
+    private static void updateLocked(Main inventory, String id, String category) {
+        synchronized (inventory) {
+            inventory.addOrUpdateItem(id, "Item", category, nextQuantity());
+        }
+    }
+
+    private static int nextQuantity() {
+        return ThreadLocalRandom.current().nextInt(1_000);
+    }
+
+    // Run the operation on random items from every thread for the given time; returns ops/second
+    private static double run(int threads, double seconds, Operation operation, int items) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long durationNanos = (long) (seconds * 1e9);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long deadline = System.nanoTime() + durationNanos;
+                long done = 0;
+                while ((done & 255) != 0 || System.nanoTime() < deadline) {
+                    operation.apply(random.nextInt(items));
+                    done++;
+                }
+                completed.add(done);
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return completed.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
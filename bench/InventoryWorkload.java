@@ -0,0 +1,202 @@
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+// Workload behind jmh.InventoryBenchmark: an inventory of a given size, a second warehouse to
+// merge from, and keys drawn ahead of time so random number generation stays out of the
+// measured calls. Each operation takes the next pre-drawn sample. It lives in the default
+// package with Main, which the JMH class cannot name from its own package.
+public class InventoryWorkload implements jmh.InventoryBenchmark.Workload
+{
+    private static final int CATEGORIES = 2_000;
+    private static final int KEY_SAMPLES = 1 << 20; // Power of two, so the sample cursor wraps with a mask
+    private static final double ZIPF_THETA = 0.99;
+    private static final int MAX_QUANTITY = 10_000;
+
+    private final Main inventory;
+    private final Main other; // A second warehouse of 1% of the size; half of its IDs overlap
+    private final int categories;
+    private final String[] ids;
+    private final String[] names;
+    private final String[] categoryNames;
+    private final String[] freshIds; // IDs not in the inventory, for the add case
+    private final List<ItemUpdate> mergeRestore = new ArrayList<>(); // Original rows of the shared items
+    private final List<String> mergeAdditions = new ArrayList<>(); // IDs the merge adds
+
+    // Pre-drawn samples: existing item indexes, category indexes and quantities
+    private final int[] itemSamples;
+    private final int[] categorySamples;
+    private final int[] quantitySamples;
+
+    private int next; // Index of the next sample
+    private int added; // Fresh items added since the last reset
+    private int moved; // Category changes since the last reset
+    private boolean merged; // The inventory holds a merge not yet undone
+
+    public InventoryWorkload(int size, String distribution) {
+        Random random = new Random(42);
+        IntUnaryOperator keys = "zipfian".equals(distribution) ? zipfian(size, random) : random::nextInt;
+        categories = Math.min(CATEGORIES, size);
+        IntUnaryOperator categoryKeys = "zipfian".equals(distribution) ? zipfian(categories, random) : random::nextInt;
+
+        itemSamples = new int[KEY_SAMPLES];
+        categorySamples = new int[KEY_SAMPLES];
+        quantitySamples = new int[KEY_SAMPLES];
+        freshIds = new String[KEY_SAMPLES];
+        for (int i = 0; i < KEY_SAMPLES; i++) {
+            itemSamples[i] = keys.applyAsInt(size);
+            categorySamples[i] = categoryKeys.applyAsInt(categories);
+            quantitySamples[i] = random.nextInt(MAX_QUANTITY);
+            freshIds[i] = "new-" + i;
+        }
+
+        ids = new String[size];
+        names = new String[size];
+        categoryNames = new String[categories];
+        for (int c = 0; c < categories; c++) {
+            categoryNames[c] = "Category-" + c;
+        }
+        List<ItemUpdate> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids[i] = Integer.toString(i);
+            names[i] = "Item " + i;
+            rows.add(new ItemUpdate(ids[i], names[i], categoryNames[i % categories], random.nextInt(MAX_QUANTITY)));
+        }
+        inventory = new Main();
+        inventory.addOrUpdateItems(rows);
+
+        other = new Main();
+        int otherSize = Math.max(1, size / 100);
+        for (int i = 0; i < otherSize; i++) {
+            String id = i % 2 == 0 ? ids[itemSamples[i]] : "other-" + i;
+            other.addOrUpdateItem(id, "Other " + i, categoryNames[categorySamples[i]], quantitySamples[i]);
+            if (i % 2 == 0) {
+                mergeRestore.add(rows.get(itemSamples[i]));
+            } else {
+                mergeAdditions.add(id);
+            }
+        }
+    }
+
+    // Undo the adds and category changes since the last reset
+    @Override
+    public void reset() {
+        for (int i = 0; i < Math.min(added, KEY_SAMPLES); i++) {
+            inventory.removeItem(freshIds[i]);
+        }
+        for (int i = 0; i < Math.min(moved, KEY_SAMPLES); i++) {
+            int item = itemSamples[i];
+            inventory.addOrUpdateItem(ids[item], names[item], categoryNames[item % categories], quantitySamples[i]);
+        }
+        added = 0;
+        moved = 0;
+        next = 0;
+    }
+
+    // After KEY_SAMPLES adds without a reset the fresh IDs repeat and further adds become updates
+    @Override
+    public void add() {
+        int i = sample();
+        added++;
+        inventory.addOrUpdateItem(freshIds[i], "New", categoryNames[categorySamples[i]], quantitySamples[i]);
+    }
+
+    @Override
+    public void update() {
+        int i = sample();
+        int item = itemSamples[i];
+        inventory.addOrUpdateItem(ids[item], names[item], categoryNames[item % categories], quantitySamples[i]);
+    }
+
+    @Override
+    public void changeCategory() {
+        int i = sample();
+        int item = itemSamples[i];
+        moved++;
+        inventory.addOrUpdateItem(ids[item], names[item], categoryNames[categorySamples[i]], quantitySamples[i]);
+    }
+
+    // The re-add keeps the inventory at its size, so repeated Zipfian keys do not fall into the
+    // not-found path; subtract the update case for removal alone
+    @Override
+    public void removeAndReAdd() {
+        int i = sample();
+        int item = itemSamples[i];
+        inventory.removeItem(ids[item]);
+        inventory.addOrUpdateItem(ids[item], names[item], categoryNames[item % categories], quantitySamples[i]);
+    }
+
+    @Override
+    public List<?> itemsByCategory() {
+        return inventory.getItemsByCategory(categoryNames[categorySamples[sample()]]);
+    }
+
+    // k from 1 to 100
+    @Override
+    public List<?> topK() {
+        return inventory.getTopKItems(1 + itemSamples[sample()] % 100);
+    }
+
+    // Call undoMerge before each merge, so every merge applies the same changes to the same inventory
+    @Override
+    public void merge() {
+        inventory.mergeInventory(other);
+        merged = true;
+    }
+
+    // Remove the items the last merge added and put the shared ones back as they were
+    @Override
+    public void undoMerge() {
+        if (!merged) {
+            return;
+        }
+        for (String id : mergeAdditions) {
+            inventory.removeItem(id);
+        }
+        inventory.addOrUpdateItems(mergeRestore);
+        merged = false;
+    }
+
+    private int sample() {
+        int i = next;
+        next = (i + 1) & (KEY_SAMPLES - 1);
+        return i;
+    }
+
+    // Zipfian sampler over [0, n) following Gray et al. Ranks are mapped to keys through a
+    // random permutation, so the hottest keys are spread over the ID space instead of being the
+    // lowest IDs, while every key keeps exactly the probability of its rank.
+    private static IntUnaryOperator zipfian(int n, Random random) {
+        int[] keyOfRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            keyOfRank[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = keyOfRank[i];
+            keyOfRank[i] = keyOfRank[j];
+            keyOfRank[j] = swap;
+        }
+
+        double zetaN = 0;
+        for (int i = 1; i <= n; i++) {
+            zetaN += 1.0 / Math.pow(i, ZIPF_THETA);
+        }
+        double zeta2 = 1 + 1.0 / Math.pow(2, ZIPF_THETA);
+        double alpha = 1.0 / (1.0 - ZIPF_THETA);
+        double eta = (1 - Math.pow(2.0 / n, 1 - ZIPF_THETA)) / (1 - zeta2 / zetaN);
+        double zeta = zetaN;
+        return bound -> {
+            double u = random.nextDouble();
+            double uz = u * zeta;
+            int rank;
+            if (uz < 1.0) {
+                rank = 0;
+            } else if (uz < zeta2) {
+                rank = 1;
+            } else {
+                rank = (int) Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+            }
+            return keyOfRank[rank];
+        };
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.*;
+
+// Heap footprint and scan speed of the HashMap<String, Main.Item> layout Main uses versus
+// CompactItemStore, at several inventory sizes. Footprint is the growth in used heap after
+// forced collections; run with a fixed heap so the collector does not resize it mid-measurement.
+// Main.Item is measured as Main allocates it, including its index fields and quantity node.
+//
+// Usage: java -Xms16g -Xmx16g MemoryFootprintBenchmark [sizes] [scanRepetitions]
+//   e.g. java -Xms16g -Xmx16g MemoryFootprintBenchmark 1000000,20000000 5
+public class MemoryFootprintBenchmark
+{
+    private static final int CATEGORIES = 2_000;
+    private static final int MAX_QUANTITY = 10_000;
+    private static final int LOOKUPS = 1 << 20;
+
+    private static volatile long sink; // Consumes results so the JIT cannot drop the work
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1_000_000, 10_000_000};
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String[] categories = new String[CATEGORIES];
+        for (int c = 0; c < CATEGORIES; c++) {
+            categories[c] = "Category-" + c;
+            CategoryRegistry.intern(categories[c]); // Registered up front so neither side is charged
+        }
+
+        System.out.printf("%-26s %10s %12s %12s %14s %14s%n",
+                "layout", "items", "MB", "bytes/item", "scan ns/item", "lookup ns/op");
+        for (int size : sizes) {
+            measureHashMap(size, categories, repetitions);
+            measureCompactStore(size, categories, repetitions);
+        }
+    }
+
+    private static void measureHashMap(int size, String[] categories, int repetitions) throws InterruptedException {
+        long before = usedHeap();
+        Map<String, Main.Item> items = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            String id = id(i);
+            items.put(id, new Main.Item(id, name(i), categories[i % CATEGORIES], random.nextInt(MAX_QUANTITY)));
+        }
+        long bytes = usedHeap() - before;
+
+        double scan = best(repetitions, () -> {
+            long total = 0;
+            for (Main.Item item : items.values()) {
+                total += item.getQuantity();
+            }
+            sink += total;
+            return size;
+        });
+        String[] keys = lookupKeys(size);
+        double lookup = best(repetitions, () -> {
+            long total = 0;
+            for (String key : keys) {
+                total += items.get(key).getQuantity();
+            }
+            sink += total;
+            return keys.length;
+        });
+        report("HashMap<String, Item>", size, bytes, scan, lookup);
+        sink += items.size();
+    }
+
+    private static void measureCompactStore(int size, String[] categories, int repetitions) throws InterruptedException {
+        long before = usedHeap();
+        CompactItemStore store = new CompactItemStore();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            store.put(id(i), name(i), categories[i % CATEGORIES], random.nextInt(MAX_QUANTITY));
+        }
+        long bytes = usedHeap() - before;
+
+        double scan = best(repetitions, () -> {
+            long total = 0;
+            for (int row = 0; row < store.size(); row++) {
+                total += store.getQuantity(row);
+            }
+            sink += total;
+            return size;
+        });
+        String[] keys = lookupKeys(size);
+        double lookup = best(repetitions, () -> {
+            long total = 0;
+            for (String key : keys) {
+                total += store.getQuantity(store.find(key));
+            }
+            sink += total;
+            return keys.length;
+        });
+        report("CompactItemStore", size, bytes, scan, lookup);
+        sink += store.size();
+    }
+
+    private interface Pass {
+        // Run once; returns the number of items or operations covered
+        int run();
+    }
+
+    // Fastest of several passes, in ns per item, so warm-up and collector pauses drop out
+    private static double best(int repetitions, Pass pass) {
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < repetitions; r++) {
+            long start = System.nanoTime();
+            int count = pass.run();
+            best = Math.min(best, (double) (System.nanoTime() - start) / count);
+        }
+        return best;
+    }
+
+    // IDs are rebuilt as fresh strings so lookups hash them the way a request would
+    private static String[] lookupKeys(int size) {
+        Random random = new Random(7);
+        String[] keys = new String[Math.min(LOOKUPS, size)];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = id(random.nextInt(size));
+        }
+        return keys;
+    }
+
+    private static void report(String layout, int size, long bytes, double scan, double lookup) {
+        System.out.printf("%-26s %10d %12.1f %12.1f %14.2f %14.1f%n",
+                layout, size, bytes / 1048576.0, (double) bytes / size, scan, lookup);
+    }
+
+    private static String id(int i) {
+        return "SKU-" + i;
+    }
+
+    private static String name(int i) {
+        return "Item " + i;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
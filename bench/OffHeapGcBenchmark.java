@@ -0,0 +1,111 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.*;
+
+// Old-generation size and collection pauses as an inventory grows, for Main versus
+// OffHeapInventory. Items are added in equal steps; after each step the benchmark reports the
+// old generation after a full collection, the collector time spent during the step, and the
+// duration of that full collection. Run each backend in its own JVM so neither inherits the
+// other's heap, with direct memory large enough for the off-heap one.
+//
+// Usage: java -Xmx16g -XX:MaxDirectMemorySize=16g OffHeapGcBenchmark [main|offheap] [items] [steps]
+//   e.g. java -Xmx16g -XX:MaxDirectMemorySize=16g OffHeapGcBenchmark offheap 50000000 10
+public class OffHeapGcBenchmark
+{
+    private static final int CATEGORIES = 2_000;
+    private static final int MAX_QUANTITY = 10_000;
+
+    private interface Backend {
+        void add(String id, String name, String category, int quantity);
+        int size();
+    }
+
+    public static void main(String[] args) {
+        String backend = args.length > 0 ? args[0] : "offheap";
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        String[] categories = new String[CATEGORIES];
+        for (int c = 0; c < CATEGORIES; c++) {
+            categories[c] = "Category-" + c;
+        }
+
+        Backend inventory;
+        if ("main".equals(backend)) {
+            Main main = new Main();
+            inventory = new Backend() {
+                private int size;
+
+                public void add(String id, String name, String category, int quantity) {
+                    main.addOrUpdateItem(id, name, category, quantity);
+                    size++;
+                }
+
+                public int size() {
+                    return size;
+                }
+            };
+        } else {
+            OffHeapInventory offHeap = new OffHeapInventory();
+            inventory = new Backend() {
+                public void add(String id, String name, String category, int quantity) {
+                    offHeap.addOrUpdateItem(id, name, category, quantity);
+                }
+
+                public int size() {
+                    return offHeap.size();
+                }
+            };
+        }
+
+        System.out.printf("%-8s %12s %12s %14s %14s %14s%n",
+                "backend", "items", "old gen MB", "step GCs", "step GC ms", "full GC ms");
+        Random random = new Random(42);
+        int perStep = Math.max(1, items / steps);
+        int next = 0;
+        for (int step = 0; step < steps; step++) {
+            long gcCount = totalCollections();
+            long gcMillis = totalCollectionMillis();
+            for (int end = Math.min(items, next + perStep); next < end; next++) {
+                inventory.add("SKU-" + next, "Item " + next, categories[next % CATEGORIES], random.nextInt(MAX_QUANTITY));
+            }
+            long stepCollections = totalCollections() - gcCount;
+            long stepMillis = totalCollectionMillis() - gcMillis;
+
+            long start = System.nanoTime();
+            System.gc();
+            double fullMillis = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%-8s %12d %12.1f %14d %14d %14.1f%n", backend, inventory.size(),
+                    oldGenBytes() / 1048576.0, stepCollections, stepMillis, fullMillis);
+        }
+    }
+
+    private static long totalCollections() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long totalCollectionMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Used bytes of the old or tenured generation, whichever the running collector calls it
+    private static long oldGenBytes() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (name.contains("Old Gen") || name.contains("Tenured")) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.*;
+
+// Latency of Main.searchByNamePrefix, as an autocomplete picker calls it on every keystroke.
+// Names are drawn from a small vocabulary, so short prefixes match a large share of the
+// inventory, which is the hard case for ranking by quantity. Each query types out 1 to 6
+// characters of a random existing name; quantity updates are interleaved so the index is
+// measured while it is being maintained. Reports the first (index-building) call and the
+// latency percentiles of the rest.
+//
+// Usage: java -Xmx8g PrefixSearchBenchmark [items] [queries] [limit]
+//   e.g. java -Xmx16g PrefixSearchBenchmark 10000000 200000 10
+public class PrefixSearchBenchmark
+{
+    private static final String[] WORDS = {
+            "laptop", "lamp", "ladder", "label", "monitor", "mouse", "mousepad", "keyboard", "cable",
+            "charger", "camera", "case", "desk", "chair", "drill", "hammer", "headset", "speaker",
+            "stand", "printer", "paper", "pen", "pencil", "router", "switch", "screen", "tablet"
+    };
+    private static final int MAX_QUANTITY = 10_000;
+    private static final int WARMUP_QUERIES = 20_000;
+
+    private static volatile long sink; // Consumes results so the JIT cannot drop the work
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(42);
+        Main inventory = new Main();
+        String[] names = new String[items];
+        for (int i = 0; i < items; i++) {
+            names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            inventory.addOrUpdateItem(Integer.toString(i), names[i], "Category-" + (i % 2_000), random.nextInt(MAX_QUANTITY));
+        }
+
+        long start = System.nanoTime();
+        sink += inventory.searchByNamePrefix("a", limit).size();
+        System.out.printf("items=%d  first search (builds the index) %.1f ms%n", items, (System.nanoTime() - start) / 1e6);
+
+        for (int q = 0; q < WARMUP_QUERIES; q++) {
+            query(inventory, names, random, limit);
+        }
+        long[] nanos = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            String id = Integer.toString(random.nextInt(items));
+            inventory.adjustQuantity(id, random.nextBoolean() ? 1 : -1);
+            nanos[q] = query(inventory, names, random, limit);
+        }
+        Arrays.sort(nanos);
+        System.out.printf("queries=%d limit=%d  p50 %.1f us  p90 %.1f us  p99 %.1f us  p99.9 %.1f us  max %.1f us%n",
+                queries, limit, percentile(nanos, 0.50), percentile(nanos, 0.90), percentile(nanos, 0.99),
+                percentile(nanos, 0.999), nanos[queries - 1] / 1e3);
+    }
+
+    // Time one search for a typed-out prefix of a random name, in nanoseconds
+    private static long query(Main inventory, String[] names, Random random, int limit) {
+        String name = names[random.nextInt(names.length)];
+        String prefix = name.substring(0, Math.min(name.length(), 1 + random.nextInt(6)));
+        long start = System.nanoTime();
+        sink += inventory.searchByNamePrefix(prefix, limit).size();
+        return System.nanoTime() - start;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e3;
+    }
+}
@@ -0,0 +1,99 @@
+package jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// JMH benchmarks for every public Main operation, at several inventory sizes and with uniform
+// and Zipfian key distributions. JMH cannot generate code for a class in the default package,
+// so this class only holds the harness and drives an InventoryWorkload, loaded by name, through
+// the Workload interface. Adds and category changes are undone after each iteration so every
+// iteration starts from the same inventory. Query results are returned so JMH consumes them.
+//
+// Usage: mvn -Pbench test-compile exec:exec -Djmh.args="InventoryBenchmark -p size=10000"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx24g") // Room for the 10M-item inventory and its indexes
+@State(Scope.Benchmark)
+public class InventoryBenchmark
+{
+    // Operations of the workload; each call uses the next pre-drawn sample
+    public interface Workload {
+        void add();
+        void update();
+        void changeCategory();
+        void removeAndReAdd();
+        List<?> itemsByCategory();
+        List<?> topK();
+        void merge();
+        void undoMerge();
+        void reset();
+    }
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"uniform", "zipfian"})
+    public String distribution;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        workload = (Workload) Class.forName("InventoryWorkload")
+                .getConstructor(int.class, String.class)
+                .newInstance(size, distribution);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset() {
+        workload.reset();
+    }
+
+    @Benchmark
+    public void addOrUpdateItemAdd() {
+        workload.add();
+    }
+
+    @Benchmark
+    public void addOrUpdateItemUpdate() {
+        workload.update();
+    }
+
+    @Benchmark
+    public void addOrUpdateItemCategoryChange() {
+        workload.changeCategory();
+    }
+
+    @Benchmark
+    public void removeItemAndReAdd() {
+        workload.removeAndReAdd();
+    }
+
+    @Benchmark
+    public List<?> getItemsByCategory() {
+        return workload.itemsByCategory();
+    }
+
+    @Benchmark
+    public List<?> getTopKItems() {
+        return workload.topK();
+    }
+
+    // Undoes the previous merge before each invocation, outside the measurement, so every
+    // measured merge brings in new data
+    @State(Scope.Benchmark)
+    public static class MergeTarget {
+        @Setup(Level.Invocation)
+        public void undoMerge(InventoryBenchmark benchmark) {
+            benchmark.workload.undoMerge();
+        }
+    }
+
+    @Benchmark
+    public void mergeInventory(MergeTarget target) {
+        workload.merge();
+    }
+}
@@ -0,0 +1,265 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Listener that copies each event into a pre-allocated ring buffer and hands it to a
+// delegate (by default the console listener) on a background thread.
+// Producers only claim a slot and copy a few fields; all formatting and I/O happens off
+// the caller's thread. When the buffer is full, producers wait for the consumer to catch up.
+class AsyncInventoryLogger implements InventoryListener, AutoCloseable
+{
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final int ITEM_ADDED = 0;
+    private static final int ITEM_UPDATED = 1;
+    private static final int ITEM_REMOVED = 2;
+    private static final int LOW_STOCK = 3;
+    private static final int ITEM_NOT_FOUND = 4;
+    private static final int INVALID_INPUT = 5;
+    private static final int CATEGORY_QUERIED = 6;
+    private static final int TOP_K_QUERIED = 7;
+    private static final int MERGE_STARTED = 8;
+    private static final int ITEM_MERGED = 9;
+    private static final int BOTTOM_K_QUERIED = 10;
+    private static final int MERGE_REJECTED = 11;
+
+    // One event; sequence is written last and publishes the other fields to the consumer
+    private static final class Slot {
+        volatile long sequence = -1;
+        int type;
+        String id;
+        String name;
+        String category;
+        int quantity;
+        int count;
+        boolean flag;
+    }
+
+    private final InventoryListener delegate;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean running = true;
+    private final Thread consumer;
+
+    public AsyncInventoryLogger() {
+        this(new ConsoleInventoryListener(), DEFAULT_CAPACITY);
+    }
+
+    // capacity is rounded up to a power of two
+    public AsyncInventoryLogger(InventoryListener delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.delegate = delegate;
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mask = size - 1;
+        consumer = new Thread(this::drainLoop, "inventory-logger");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void itemAdded(Main.Item item) {
+        publishItem(ITEM_ADDED, item, false);
+    }
+
+    @Override
+    public void itemUpdated(Main.Item item) {
+        publishItem(ITEM_UPDATED, item, false);
+    }
+
+    @Override
+    public void itemRemoved(Main.Item item) {
+        publishItem(ITEM_REMOVED, item, false);
+    }
+
+    @Override
+    public void lowStock(Main.Item item) {
+        publishItem(LOW_STOCK, item, false);
+    }
+
+    @Override
+    public void itemNotFound(String id) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = ITEM_NOT_FOUND;
+        slot.id = id;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void invalidInput(String message) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = INVALID_INPUT;
+        slot.name = message;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void categoryQueried(String category, int itemCount) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = CATEGORY_QUERIED;
+        slot.category = category;
+        slot.count = itemCount;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void topKQueried(int k, int itemCount) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = TOP_K_QUERIED;
+        slot.quantity = k;
+        slot.count = itemCount;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void bottomKQueried(int k, int itemCount) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = BOTTOM_K_QUERIED;
+        slot.quantity = k;
+        slot.count = itemCount;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void mergeStarted() {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = MERGE_STARTED;
+        slot.sequence = sequence;
+    }
+
+    @Override
+    public void itemMerged(Main.Item item, boolean added) {
+        publishItem(ITEM_MERGED, item, added);
+    }
+
+    @Override
+    public void mergeRejected(String id) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = MERGE_REJECTED;
+        slot.id = id;
+        slot.sequence = sequence;
+    }
+
+    // Stop accepting events, deliver everything already published and stop the consumer
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Copy the item's fields, since the item may change before the consumer gets to it
+    private void publishItem(int type, Main.Item item, boolean flag) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = type;
+        slot.id = item.getId();
+        slot.name = item.getName();
+        slot.category = item.getCategory();
+        slot.quantity = item.getQuantity();
+        slot.flag = flag;
+        slot.sequence = sequence;
+    }
+
+    // Claim the next sequence, waiting while the buffer is full; -1 once the logger is closed
+    private long claim() {
+        if (!running) {
+            return -1;
+        }
+        long sequence = claimed.getAndIncrement();
+        int spins = 0;
+        while (sequence - consumed >= slots.length) {
+            if (!consumer.isAlive()) {
+                return -1;
+            }
+            LockSupport.unpark(consumer);
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return sequence;
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence == next) {
+                dispatch(slot);
+                slot.id = null;
+                slot.name = null;
+                slot.category = null;
+                consumed = ++next;
+            } else if (running || next < claimed.get()) {
+                LockSupport.parkNanos(100_000L);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void dispatch(Slot slot) {
+        switch (slot.type) {
+            case ITEM_ADDED -> delegate.itemAdded(snapshot(slot));
+            case ITEM_UPDATED -> delegate.itemUpdated(snapshot(slot));
+            case ITEM_REMOVED -> delegate.itemRemoved(snapshot(slot));
+            case LOW_STOCK -> delegate.lowStock(snapshot(slot));
+            case ITEM_NOT_FOUND -> delegate.itemNotFound(slot.id);
+            case INVALID_INPUT -> delegate.invalidInput(slot.name);
+            case CATEGORY_QUERIED -> delegate.categoryQueried(slot.category, slot.count);
+            case TOP_K_QUERIED -> delegate.topKQueried(slot.quantity, slot.count);
+            case BOTTOM_K_QUERIED -> delegate.bottomKQueried(slot.quantity, slot.count);
+            case MERGE_STARTED -> delegate.mergeStarted();
+            case ITEM_MERGED -> delegate.itemMerged(snapshot(slot), slot.flag);
+            case MERGE_REJECTED -> delegate.mergeRejected(slot.id);
+            default -> throw new IllegalStateException("Unknown event type: " + slot.type);
+        }
+    }
+
+    private static Main.Item snapshot(Slot slot) {
+        return new Main.Item(slot.id, slot.name, slot.category, slot.quantity);
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.*;
+
+// Outcome of Main.addOrUpdateItems: how many rows were applied and why the others were rejected
+class BatchResult
+{
+    // A rejected row, identified by its position in the batch
+    static class RowError {
+        private final int row;
+        private final String id;
+        private final String message;
+
+        RowError(int row, String id, String message) {
+            this.row = row;
+            this.id = id;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getId() { return id; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "RowError{row=" + row + ", id='" + id + "', message='" + message + "'}";
+        }
+    }
+
+    private int added;
+    private int updated;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void recordAdded() {
+        added++;
+    }
+
+    void recordUpdated() {
+        updated++;
+    }
+
+    void recordError(int row, String id, String message) {
+        errors.add(new RowError(row, id, message));
+    }
+
+    // Rows that created a new item
+    public int getAdded() { return added; }
+
+    // Rows that changed an existing item, including repeated IDs within the batch
+    public int getUpdated() { return updated; }
+
+    public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+
+    public boolean hasErrors() { return !errors.isEmpty(); }
+
+    @Override
+    public String toString() {
+        return "BatchResult{added=" + added + ", updated=" + updated + ", errors=" + errors + '}';
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns category names to dense int IDs (0, 1, 2, ...), shared by every inventory in the JVM.
+// Items store the 4-byte ID instead of a String reference, and per-category indexes live in
+// arrays indexed by it. IDs are never reclaimed, which suits a bounded set of a few thousand
+// categories. Lookups are lock-free; only registering a new name takes a lock.
+final class CategoryRegistry
+{
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count; // Guarded by the class lock
+
+    private CategoryRegistry() {
+    }
+
+    // ID of a category name, registering it on first use
+    static int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    // ID of a category name, or -1 if it was never registered
+    static int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    static String name(int id) {
+        return names[id];
+    }
+
+    // Number of registered categories; every ID is below it
+    static int size() {
+        return ids.size();
+    }
+
+    private static synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        String[] current = names;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+        }
+        current[count] = name;
+        names = current; // Publish the name before the ID can be seen
+        ids.put(name, count);
+        return count++;
+    }
+}
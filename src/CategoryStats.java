@@ -0,0 +1,122 @@
+// Running aggregates of one category: item count, total quantity, lowest and highest quantity,
+// and how many items are below their restock threshold.
+//
+// Main updates them in O(1) on every mutation. The highest quantity is read from the category
+// heap. The lowest is tracked with the number of items holding it; only when the last of those
+// leaves or rises is it marked stale, to be read again on the next query from the category's
+// ordered index in O(log n), together with its new count. That index then stays maintained,
+// so changes in the category cost O(log n) from there on. Main.getCategoryStats returns copies,
+// which later mutations do not change.
+class CategoryStats
+{
+    private int count;
+    private long totalQuantity;
+    private int lowStockCount;
+    private int minQuantity;
+    private int maxQuantity;
+    private int minCount; // Items known to hold minQuantity; at most the true number
+    private boolean minStale;
+
+    CategoryStats() {
+    }
+
+    private CategoryStats(CategoryStats other) {
+        count = other.count;
+        totalQuantity = other.totalQuantity;
+        lowStockCount = other.lowStockCount;
+        minQuantity = other.minQuantity;
+        maxQuantity = other.maxQuantity;
+    }
+
+    public int getCount() { return count; }
+    public long getTotalQuantity() { return totalQuantity; }
+    public int getLowStockCount() { return lowStockCount; }
+
+    // Lowest and highest quantity in the category; 0 when it is empty
+    public int getMinQuantity() { return minQuantity; }
+    public int getMaxQuantity() { return maxQuantity; }
+
+    public double getAverageQuantity() {
+        return count == 0 ? 0 : (double) totalQuantity / count;
+    }
+
+    // An item with this quantity joined the category
+    void add(int quantity, boolean lowStock) {
+        if (count++ == 0) {
+            minQuantity = quantity;
+            minCount = 1;
+            minStale = false;
+        } else if (!minStale && quantity <= minQuantity) {
+            minCount = quantity < minQuantity ? 1 : minCount + 1;
+            minQuantity = quantity;
+        }
+        totalQuantity += quantity;
+        if (lowStock) {
+            lowStockCount++;
+        }
+    }
+
+    // An item with this quantity left the category
+    void remove(int quantity, boolean lowStock) {
+        totalQuantity -= quantity;
+        if (lowStock) {
+            lowStockCount--;
+        }
+        if (--count == 0) {
+            minQuantity = 0;
+            minCount = 0;
+            minStale = false;
+        } else if (!minStale && quantity == minQuantity && --minCount == 0) {
+            minStale = true;
+        }
+    }
+
+    // An item of the category changed quantity
+    void change(int oldQuantity, int quantity) {
+        totalQuantity += quantity - oldQuantity;
+        if (minStale || oldQuantity == quantity) {
+            return;
+        }
+        if (quantity < minQuantity) {
+            minQuantity = quantity;
+            minCount = 1;
+        } else if (quantity == minQuantity) {
+            minCount++;
+        } else if (oldQuantity == minQuantity && --minCount == 0) {
+            minStale = true;
+        }
+    }
+
+    // An item of the category crossed its restock threshold
+    void lowStockChanged(boolean lowStock) {
+        lowStockCount += lowStock ? 1 : -1;
+    }
+
+    // Whether the lowest quantity must be re-read before the next snapshot
+    boolean isMinStale() {
+        return minStale;
+    }
+
+    // Copy for a caller; order is the category's ordered index, needed only while the lowest
+    // quantity is stale, and the lowest quantity and its count are refreshed from it first
+    CategoryStats snapshot(ItemHeap heap, QuantityIndex order) {
+        if (minStale && order != null) {
+            minQuantity = order.lowestQuantity();
+            minCount = order.countBetween(minQuantity, minQuantity);
+            minStale = false;
+        }
+        CategoryStats copy = new CategoryStats(this);
+        copy.maxQuantity = heap == null || heap.isEmpty() ? 0 : heap.peek().getQuantity();
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryStats{count=" + count +
+                ", totalQuantity=" + totalQuantity +
+                ", minQuantity=" + minQuantity +
+                ", maxQuantity=" + maxQuantity +
+                ", lowStockCount=" + lowStockCount +
+                '}';
+    }
+}
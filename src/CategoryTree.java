@@ -0,0 +1,162 @@
+import java.util.*;
+
+// Categories arranged by path, e.g. Electronics/Computers/Laptops, with subtree quantity rollups.
+// Each path segment is a node; a node is a category when some item uses that exact path, and
+// otherwise only groups the categories below it. Nodes are numbered in pre-order, so every
+// subtree covers one contiguous range of positions, and a Fenwick tree over those positions
+// answers a subtree total with two prefix sums in O(log n) instead of visiting each descendant.
+//
+// A new category changes the numbering, so it only marks the layout stale; the next query
+// renumbers the tree and rebuilds the Fenwick tree in O(n) from the per-category totals kept
+// alongside it. Quantity changes in between only update those totals.
+class CategoryTree
+{
+    static final char SEPARATOR = '/';
+
+    private static final class Node {
+        final TreeMap<String, Node> children = new TreeMap<>(); // Sorted, so pre-order is path order
+        int categoryId = -1; // CategoryRegistry ID, or -1 for a node that is only a path prefix
+        int first; // Pre-order position of this node
+        int end; // One past the last position in its subtree
+    }
+
+    private final Node root = new Node();
+    private int nodes = 1; // Including the root
+    private long[] totals = new long[0]; // Total quantity by category ID
+    private int[] positions = new int[0]; // Pre-order position by category ID
+    private int[] categoryAt; // Category ID at each pre-order position, -1 for prefix-only nodes
+    private long[] fenwick; // 1-based Fenwick tree over pre-order positions
+    private boolean stale = true;
+
+    // Place a category in the tree by its path; adding one already present does nothing
+    void addCategory(int categoryId) {
+        if (categoryId < totals.length && positions[categoryId] >= 0) {
+            return;
+        }
+        if (categoryId >= totals.length) {
+            int length = totals.length;
+            totals = Arrays.copyOf(totals, Math.max(categoryId + 1, length * 2));
+            positions = Arrays.copyOf(positions, totals.length);
+            Arrays.fill(positions, length, positions.length, -1);
+        }
+        Node node = root;
+        for (String segment : segments(CategoryRegistry.name(categoryId))) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+                nodes++;
+            }
+            node = child;
+        }
+        node.categoryId = categoryId;
+        positions[categoryId] = 0; // Placed; the real position is assigned on renumbering
+        stale = true;
+    }
+
+    // Add delta to a category's total; the category must have been added
+    void add(int categoryId, long delta) {
+        totals[categoryId] += delta;
+        if (!stale) {
+            for (int i = positions[categoryId] + 1; i < fenwick.length; i += i & -i) {
+                fenwick[i] += delta;
+            }
+        }
+    }
+
+    // Total quantity of the category at path and of every category below it; 0 for an unknown path
+    long subtreeTotal(String path) {
+        Node node = find(path);
+        if (node == null) {
+            return 0;
+        }
+        renumberIfStale();
+        return prefixSum(node.end) - prefixSum(node.first);
+    }
+
+    // IDs of the category at path and of every category below it, in path order
+    int[] subtreeCategories(String path) {
+        Node node = find(path);
+        if (node == null) {
+            return new int[0];
+        }
+        renumberIfStale();
+        int[] ids = new int[node.end - node.first];
+        int count = 0;
+        for (int position = node.first; position < node.end; position++) {
+            if (categoryAt[position] >= 0) {
+                ids[count++] = categoryAt[position];
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private Node find(String path) {
+        Node node = root;
+        for (String segment : segments(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static String[] segments(String path) {
+        return path.split(String.valueOf(SEPARATOR), -1);
+    }
+
+    // Helper to assign pre-order positions and rebuild the Fenwick tree in O(n)
+    private void renumberIfStale() {
+        if (!stale) {
+            return;
+        }
+        categoryAt = new int[nodes];
+        Deque<Node> pending = new ArrayDeque<>(); // Nodes whose subtree end is still open
+        Deque<Iterator<Node>> children = new ArrayDeque<>();
+        int next = 0;
+        number(root, next++);
+        pending.push(root);
+        children.push(root.children.values().iterator());
+        while (!pending.isEmpty()) {
+            if (children.peek().hasNext()) {
+                Node child = children.peek().next();
+                number(child, next++);
+                pending.push(child);
+                children.push(child.children.values().iterator());
+            } else {
+                pending.pop().end = next;
+                children.pop();
+            }
+        }
+
+        fenwick = new long[nodes + 1];
+        for (int position = 0; position < nodes; position++) {
+            if (categoryAt[position] >= 0) {
+                fenwick[position + 1] += totals[categoryAt[position]];
+            }
+            int parent = position + 1 + ((position + 1) & -(position + 1));
+            if (parent <= nodes) {
+                fenwick[parent] += fenwick[position + 1];
+            }
+        }
+        stale = false;
+    }
+
+    private void number(Node node, int position) {
+        node.first = position;
+        categoryAt[position] = node.categoryId;
+        if (node.categoryId >= 0) {
+            positions[node.categoryId] = position;
+        }
+    }
+
+    // Sum of the first n positions
+    private long prefixSum(int n) {
+        long sum = 0;
+        for (int i = n; i > 0; i -= i & -i) {
+            sum += fenwick[i];
+        }
+        return sum;
+    }
+}
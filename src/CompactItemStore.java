@@ -0,0 +1,388 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Item store laid out as parallel primitive columns instead of one object per item.
+//
+// Row r holds quantity[r], categoryId[r] (a CategoryRegistry ID), idHash[r] and the offsets of
+// its ID and name in a shared byte arena, where strings are kept as varint length + UTF-8.
+// An open-addressing table of row numbers finds a row by ID. Rows stay dense: removing one moves
+// the last row into its place, so a scan reads only the live prefix of each column.
+// Renames and removals leave dead bytes in the arena, which is compacted once they make up half
+// of it; the arena is limited to 2 GB. Items are handed out as View flyweights over a row number.
+// Not thread-safe.
+class CompactItemStore
+{
+    private static final int INITIAL_ROWS = 16;
+    private static final int EMPTY = -1;
+
+    private int[] quantity = new int[INITIAL_ROWS];
+    private int[] categoryId = new int[INITIAL_ROWS];
+    private int[] idHash = new int[INITIAL_ROWS];
+    private int[] idOffset = new int[INITIAL_ROWS];
+    private int[] nameOffset = new int[INITIAL_ROWS];
+    private int size;
+
+    private byte[] arena = new byte[INITIAL_ROWS * 16];
+    private int arenaSize;
+    private int deadBytes;
+
+    private int[] table = newTable(INITIAL_ROWS * 2); // Row numbers, EMPTY where free
+    private int mask = table.length - 1;
+
+    // Read-only view of one row. Re-point it with moveTo to walk many rows without allocating.
+    // A view reads the columns on every call, so it sees later updates to its row, but after a
+    // removal the row number may belong to another item.
+    final class View {
+        private int row;
+
+        private View(int row) {
+            this.row = row;
+        }
+
+        public View moveTo(int row) {
+            this.row = row;
+            return this;
+        }
+
+        public int getRow() { return row; }
+        public String getId() { return string(idOffset[row]); }
+        public String getName() { return string(nameOffset[row]); }
+        public String getCategory() { return CategoryRegistry.name(categoryId[row]); }
+        public int getQuantity() { return quantity[row]; }
+
+        @Override
+        public String toString() {
+            return "Item{" +
+                    "id='" + getId() + '\'' +
+                    ", name='" + getName() + '\'' +
+                    ", category='" + getCategory() + '\'' +
+                    ", quantity=" + getQuantity() +
+                    '}';
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes reserved by the string arena, live and dead
+    int arenaCapacity() {
+        return arena.length;
+    }
+
+    // Add an item or overwrite the one with the same ID; returns its row.
+    // Arguments are not validated here; Main's rules apply to callers that need them.
+    public int put(String id, String name, String category, int quantity) {
+        int hash = id.hashCode();
+        int row = find(id, hash);
+        if (row == EMPTY) {
+            if (size == this.quantity.length) {
+                growRows();
+            }
+            row = size++;
+            idHash[row] = hash;
+            idOffset[row] = append(id.getBytes(StandardCharsets.UTF_8));
+            nameOffset[row] = append(name.getBytes(StandardCharsets.UTF_8));
+            insertSlot(row);
+        } else if (!stringEquals(nameOffset[row], name)) {
+            deadBytes += recordBytes(nameOffset[row]);
+            nameOffset[row] = append(name.getBytes(StandardCharsets.UTF_8));
+        }
+        this.categoryId[row] = CategoryRegistry.intern(category);
+        this.quantity[row] = quantity;
+        compactIfSparse();
+        return row;
+    }
+
+    // Row of the item with this ID, or -1
+    public int find(String id) {
+        return find(id, id.hashCode());
+    }
+
+    // Remove an item by ID; the last row moves into its place. Returns whether it was present.
+    public boolean remove(String id) {
+        int row = find(id, id.hashCode());
+        if (row == EMPTY) {
+            return false;
+        }
+        deleteSlot(row);
+        deadBytes += recordBytes(idOffset[row]) + recordBytes(nameOffset[row]);
+
+        int last = --size;
+        if (row != last) {
+            replaceSlot(last, row);
+            quantity[row] = quantity[last];
+            categoryId[row] = categoryId[last];
+            idHash[row] = idHash[last];
+            idOffset[row] = idOffset[last];
+            nameOffset[row] = nameOffset[last];
+        }
+        compactIfSparse();
+        return true;
+    }
+
+    public int getQuantity(int row) {
+        return quantity[row];
+    }
+
+    public void setQuantity(int row, int quantity) {
+        this.quantity[row] = quantity;
+    }
+
+    public int getCategoryId(int row) {
+        return categoryId[row];
+    }
+
+    public String getId(int row) {
+        return string(idOffset[row]);
+    }
+
+    public String getName(int row) {
+        return string(nameOffset[row]);
+    }
+
+    public View view(int row) {
+        return new View(row);
+    }
+
+    // Rows of the k items with the highest quantity, highest first.
+    // One pass over the quantity column with a k-entry min-heap of rows; O(n log k).
+    public int[] highest(int k) {
+        int count = Math.min(k, size);
+        int[] heap = new int[count];
+        int filled = 0;
+        for (int row = 0; row < size; row++) {
+            if (filled < count) {
+                heap[filled] = row;
+                siftUp(heap, filled++);
+            } else if (count > 0 && quantity[row] > quantity[heap[0]]) {
+                heap[0] = row;
+                siftDown(heap, count);
+            }
+        }
+        // Pop the minimum to the back repeatedly, leaving the rows in descending order
+        for (int end = count - 1; end > 0; end--) {
+            int top = heap[0];
+            heap[0] = heap[end];
+            heap[end] = top;
+            siftDown(heap, end);
+        }
+        return heap;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (quantity[heap[parent]] <= quantity[row]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int[] heap, int length) {
+        int row = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= length) {
+                break;
+            }
+            if (child + 1 < length && quantity[heap[child + 1]] < quantity[heap[child]]) {
+                child++;
+            }
+            if (quantity[heap[child]] >= quantity[row]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+
+    private int find(String id, int hash) {
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int row = table[slot];
+            if (row == EMPTY) {
+                return EMPTY;
+            }
+            if (idHash[row] == hash && stringEquals(idOffset[row], id)) {
+                return row;
+            }
+        }
+    }
+
+    private void insertSlot(int row) {
+        if ((size << 1) > table.length) {
+            rehash(table.length << 1);
+            return; // The rehash already placed every row, including this one
+        }
+        int slot = spread(idHash[row]) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row;
+    }
+
+    // Point the table slot holding row 'from' at row 'to'
+    private void replaceSlot(int from, int to) {
+        table[slotOf(from)] = to;
+    }
+
+    // Empty the slot holding row, shifting later entries of its probe run back into the gap
+    private void deleteSlot(int row) {
+        int gap = slotOf(row);
+        for (int slot = (gap + 1) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = spread(idHash[table[slot]]) & mask;
+            // Move the entry back unless its home lies cyclically in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    private int slotOf(int row) {
+        int slot = spread(idHash[row]) & mask;
+        while (table[slot] != row) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        table = newTable(capacity);
+        mask = capacity - 1;
+        for (int row = 0; row < size; row++) {
+            int slot = spread(idHash[row]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = row;
+        }
+    }
+
+    private void growRows() {
+        int capacity = quantity.length * 2;
+        quantity = Arrays.copyOf(quantity, capacity);
+        categoryId = Arrays.copyOf(categoryId, capacity);
+        idHash = Arrays.copyOf(idHash, capacity);
+        idOffset = Arrays.copyOf(idOffset, capacity);
+        nameOffset = Arrays.copyOf(nameOffset, capacity);
+    }
+
+    // Append a length-prefixed string to the arena; returns its offset
+    private int append(byte[] bytes) {
+        int needed = 5 + bytes.length;
+        if (arena.length - arenaSize < needed) {
+            long capacity = Math.max((long) arena.length * 2, (long) arenaSize + needed);
+            if ((long) arenaSize + needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Item store arena is full.");
+            }
+            arena = Arrays.copyOf(arena, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        int offset = arenaSize;
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            arena[arenaSize++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        arena[arenaSize++] = (byte) length;
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        arenaSize += bytes.length;
+        return offset;
+    }
+
+    // Rewrite the arena without dead bytes once they are half of it
+    private void compactIfSparse() {
+        if (deadBytes < 4096 || deadBytes < arenaSize / 2) {
+            return;
+        }
+        byte[] old = arena;
+        arena = new byte[Math.max(INITIAL_ROWS * 16, (arenaSize - deadBytes) * 2)];
+        arenaSize = 0;
+        deadBytes = 0;
+        for (int row = 0; row < size; row++) {
+            idOffset[row] = copyRecord(old, idOffset[row]);
+            nameOffset[row] = copyRecord(old, nameOffset[row]);
+        }
+    }
+
+    private int copyRecord(byte[] from, int offset) {
+        int bytes = recordBytes(from, offset);
+        System.arraycopy(from, offset, arena, arenaSize, bytes);
+        arenaSize += bytes;
+        return arenaSize - bytes;
+    }
+
+    private int recordBytes(int offset) {
+        return recordBytes(arena, offset);
+    }
+
+    // Size of the length prefix plus the string bytes of the record at offset
+    private static int recordBytes(byte[] bytes, int offset) {
+        int length = stringLength(bytes, offset);
+        return prefixBytes(length) + length;
+    }
+
+    // Byte length of the string whose record starts at offset
+    private static int stringLength(byte[] bytes, int offset) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[offset++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    // Size of the varint length prefix for a string of the given byte length
+    private static int prefixBytes(int length) {
+        return (38 - Integer.numberOfLeadingZeros(length | 1)) / 7;
+    }
+
+    private String string(int offset) {
+        int length = stringLength(arena, offset);
+        int position = offset + prefixBytes(length);
+        return new String(arena, position, length, StandardCharsets.UTF_8);
+    }
+
+    // Compare the record at offset with a string; ASCII strings are compared without allocating
+    private boolean stringEquals(int offset, String value) {
+        int length = stringLength(arena, offset);
+        int position = offset + prefixBytes(length);
+        int n = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            if (length != n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (arena[position + i] != (byte) value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return Arrays.equals(arena, position, position + length, bytes, 0, bytes.length);
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,409 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe variant of the Main inventory API.
+// Items live in a ConcurrentHashMap, and the category indexes are split across lock stripes
+// chosen by category hash, so updates to different categories proceed in parallel.
+// Each item's own monitor serializes changes to that item; it is always taken before any
+// stripe lock, and when two stripes are needed they are locked in index order.
+class ConcurrentInventory
+{
+    private static final int DEFAULT_STRIPES = 64;
+
+    // One lock stripe and the category heaps that hash to it
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, ItemHeap> categories = new HashMap<>();
+    }
+
+    private final ConcurrentHashMap<String, Main.Item> inventoryMap;
+    private final Stripe[] stripes;
+    private volatile InventoryListener listener = InventoryListener.NONE;
+
+    public ConcurrentInventory() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // stripeCount is rounded up to a power of two
+    public ConcurrentInventory(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        inventoryMap = new ConcurrentHashMap<>();
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // Install an event sink; it must be thread-safe. Pass null to go back to the silent default
+    public void setListener(InventoryListener listener) {
+        this.listener = listener != null ? listener : InventoryListener.NONE;
+    }
+
+    // Add or update an item in the inventory
+    public void addOrUpdateItem(String id, String name, String category, int quantity) {
+        InventoryListener listener = this.listener;
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return;
+        }
+        if (name == null || name.isEmpty()) {
+            listener.invalidInput("Item name cannot be null or empty.");
+            return;
+        }
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return;
+        }
+        if (quantity < 0) {
+            listener.invalidInput("Quantity cannot be negative.");
+            return;
+        }
+
+        while (true) {
+            Main.Item existingItem = inventoryMap.get(id);
+            if (existingItem == null) {
+                Main.Item newItem = new Main.Item(id, name, category, quantity);
+                synchronized (newItem) {
+                    if (inventoryMap.putIfAbsent(id, newItem) == null) {
+                        addToCategory(newItem);
+                        listener.itemAdded(newItem);
+                        if (quantity < Main.DEFAULT_RESTOCK_THRESHOLD) {
+                            listener.lowStock(newItem);
+                        }
+                        return;
+                    }
+                }
+                continue; // Another thread added the ID first; update its item instead
+            }
+
+            synchronized (existingItem) {
+                if (inventoryMap.get(id) != existingItem) {
+                    continue; // Removed or replaced while we waited for the monitor
+                }
+                existingItem.setName(name);
+                updateIndexed(existingItem, category, quantity);
+                listener.itemUpdated(existingItem);
+                if (quantity < Main.DEFAULT_RESTOCK_THRESHOLD) {
+                    listener.lowStock(existingItem);
+                }
+                return;
+            }
+        }
+    }
+
+    // Remove an item by ID
+    public void removeItem(String id) {
+        InventoryListener listener = this.listener;
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return;
+        }
+
+        Main.Item item = inventoryMap.get(id);
+        if (item != null) {
+            synchronized (item) {
+                if (inventoryMap.remove(id, item)) {
+                    removeFromCategory(item);
+                    listener.itemRemoved(item);
+                    return;
+                }
+            }
+        }
+        listener.itemNotFound(id);
+    }
+
+    // Get all items in a category
+    public List<Main.Item> getItemsByCategory(String category) {
+        InventoryListener listener = this.listener;
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return Collections.emptyList();
+        }
+
+        Stripe stripe = stripeFor(category);
+        List<Main.Item> items;
+        stripe.lock.lock();
+        try {
+            ItemHeap heap = stripe.categories.get(category);
+            items = heap == null ? Collections.emptyList() : heap.toList();
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        listener.categoryQueried(category, items.size());
+        return items;
+    }
+
+    // Get the top k items by quantity.
+    // Collects the k best of every category one stripe at a time, so the result is consistent
+    // per stripe but is not an atomic snapshot of the whole inventory.
+    public List<Main.Item> getTopKItems(int k) {
+        InventoryListener listener = this.listener;
+        if (k <= 0) {
+            listener.invalidInput("'k' must be a positive integer. Please provide a valid number.");
+            return Collections.emptyList();
+        }
+
+        List<Main.Item> candidates = new ArrayList<>();
+        int[] quantities = new int[16];
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (ItemHeap heap : stripe.categories.values()) {
+                    for (Main.Item item : heap.highest(k)) {
+                        if (candidates.size() == quantities.length) {
+                            quantities = Arrays.copyOf(quantities, quantities.length * 2);
+                        }
+                        quantities[candidates.size()] = item.getQuantity(); // Read under the lock
+                        candidates.add(item);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] snapshot = quantities;
+        Arrays.sort(order, (a, b) -> Integer.compare(snapshot[b], snapshot[a]));
+
+        List<Main.Item> topKItems = new ArrayList<>(Math.min(k, order.length));
+        for (int i = 0; i < order.length && i < k; i++) {
+            topKItems.add(candidates.get(order[i]));
+        }
+        listener.topKQueried(k, topKItems.size());
+        return topKItems;
+    }
+
+    // Lock-free change of an item's quantity by delta; fails if the item is missing or stock would go negative
+    public boolean adjustQuantity(String id, int delta) {
+        InventoryListener listener = this.listener;
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return false;
+        }
+
+        Main.Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return false;
+        }
+
+        int current;
+        long quantity;
+        do {
+            current = item.getQuantity();
+            quantity = (long) current + delta;
+            if (quantity < 0) {
+                listener.invalidInput("Quantity cannot be negative.");
+                return false;
+            }
+            if (quantity > Integer.MAX_VALUE) {
+                listener.invalidInput("Quantity is too large.");
+                return false;
+            }
+        } while (!item.compareAndSetQuantity(current, (int) quantity));
+
+        quantityChanged(item, (int) quantity, listener);
+        return true;
+    }
+
+    // Lock-free take of n units, only if at least n are in stock; returns whether the decrement happened
+    public boolean tryDecrement(String id, int n) {
+        InventoryListener listener = this.listener;
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return false;
+        }
+        if (n <= 0) {
+            listener.invalidInput("Decrement must be a positive integer.");
+            return false;
+        }
+
+        Main.Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return false;
+        }
+
+        int current;
+        do {
+            current = item.getQuantity();
+            if (current < n) {
+                return false;
+            }
+        } while (!item.compareAndSetQuantity(current, current - n));
+
+        quantityChanged(item, current - n, listener);
+        return true;
+    }
+
+    // Merge another inventory into this one, keeping the higher quantity for shared IDs
+    public void mergeInventory(ConcurrentInventory other) {
+        InventoryListener listener = this.listener;
+        if (other == null) {
+            listener.invalidInput("Cannot merge with a null inventory.");
+            return;
+        }
+
+        listener.mergeStarted();
+        for (Main.Item otherItem : other.inventoryMap.values()) {
+            String id;
+            String name;
+            String category;
+            int quantity;
+            synchronized (otherItem) {
+                id = otherItem.getId();
+                name = otherItem.getName();
+                category = otherItem.getCategory();
+                quantity = otherItem.getQuantity();
+            }
+            mergeItem(id, name, category, quantity, listener);
+        }
+    }
+
+    public int size() {
+        return inventoryMap.size();
+    }
+
+    private void mergeItem(String id, String name, String category, int quantity, InventoryListener listener) {
+        while (true) {
+            Main.Item existingItem = inventoryMap.get(id);
+            if (existingItem == null) {
+                Main.Item newItem = new Main.Item(id, name, category, quantity);
+                synchronized (newItem) {
+                    if (inventoryMap.putIfAbsent(id, newItem) == null) {
+                        addToCategory(newItem);
+                        listener.itemMerged(newItem, true);
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            synchronized (existingItem) {
+                if (inventoryMap.get(id) != existingItem) {
+                    continue;
+                }
+                if (quantity > existingItem.getQuantity()) {
+                    updateIndexed(existingItem, existingItem.getCategory(), quantity);
+                    listener.itemMerged(existingItem, false);
+                }
+                return;
+            }
+        }
+    }
+
+    private void quantityChanged(Main.Item item, int quantity, InventoryListener listener) {
+        reindex(item);
+        listener.itemUpdated(item);
+        if (quantity < Main.DEFAULT_RESTOCK_THRESHOLD) {
+            listener.lowStock(item);
+        }
+    }
+
+    // Bring the item's heap position up to date after a lock-free quantity change.
+    // Only the thread that raises the pending flag does the work; the others skip, which is
+    // safe because the flag is cleared before the quantity is re-read under the stripe lock.
+    // A hot SKU therefore costs most callers a single CAS instead of a lock acquisition.
+    private void reindex(Main.Item item) {
+        if (!item.markReindexPending()) {
+            return;
+        }
+        synchronized (item) {
+            item.clearReindexPending();
+            if (inventoryMap.get(item.getId()) != item) {
+                return; // Removed concurrently
+            }
+            Stripe stripe = stripeFor(item.getCategory());
+            stripe.lock.lock();
+            try {
+                ItemHeap heap = stripe.categories.get(item.getCategory());
+                if (heap != null) {
+                    heap.update(item);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    // Change category and quantity of a mapped item; the caller holds the item's monitor
+    private void updateIndexed(Main.Item item, String category, int quantity) {
+        String oldCategory = item.getCategory();
+        int fromIndex = indexFor(oldCategory);
+        int toIndex = indexFor(category);
+        Stripe from = stripes[fromIndex];
+        Stripe to = stripes[toIndex];
+        Stripe first = stripes[Math.min(fromIndex, toIndex)];
+        Stripe second = stripes[Math.max(fromIndex, toIndex)];
+
+        first.lock.lock();
+        if (second != first) {
+            second.lock.lock();
+        }
+        try {
+            if (oldCategory.equals(category)) {
+                item.setQuantity(quantity);
+                from.categories.get(category).update(item);
+            } else {
+                removeFromHeap(from, item);
+                item.setCategory(category);
+                item.setQuantity(quantity);
+                to.categories.computeIfAbsent(category, c -> new ItemHeap()).add(item);
+            }
+        } finally {
+            if (second != first) {
+                second.lock.unlock();
+            }
+            first.lock.unlock();
+        }
+    }
+
+    private void addToCategory(Main.Item item) {
+        Stripe stripe = stripeFor(item.getCategory());
+        stripe.lock.lock();
+        try {
+            stripe.categories.computeIfAbsent(item.getCategory(), c -> new ItemHeap()).add(item);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void removeFromCategory(Main.Item item) {
+        Stripe stripe = stripeFor(item.getCategory());
+        stripe.lock.lock();
+        try {
+            removeFromHeap(stripe, item);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // The caller holds the stripe's lock
+    private static void removeFromHeap(Stripe stripe, Main.Item item) {
+        ItemHeap heap = stripe.categories.get(item.getCategory());
+        if (heap != null) {
+            heap.remove(item);
+            if (heap.isEmpty()) {
+                stripe.categories.remove(item.getCategory());
+            }
+        }
+    }
+
+    private Stripe stripeFor(String category) {
+        return stripes[indexFor(category)];
+    }
+
+    private int indexFor(String category) {
+        int h = category.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.PrintStream;
+
+// Listener that prints every event in the inventory's original console format
+class ConsoleInventoryListener implements InventoryListener
+{
+    private final PrintStream out;
+
+    public ConsoleInventoryListener() {
+        this(System.out);
+    }
+
+    public ConsoleInventoryListener(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void itemAdded(Main.Item item) {
+        out.println("Item successfully added: " + item);
+    }
+
+    @Override
+    public void itemUpdated(Main.Item item) {
+        out.println("Item successfully updated: " + item);
+    }
+
+    @Override
+    public void itemRemoved(Main.Item item) {
+        out.println("Item successfully removed: " + item);
+    }
+
+    @Override
+    public void lowStock(Main.Item item) {
+        out.println("Warning: Item \"" + item.getName() + "\" is low in stock. Quantity: " + item.getQuantity() + ". Consider restocking soon.");
+    }
+
+    @Override
+    public void itemNotFound(String id) {
+        out.println("Error: Item with ID '" + id + "' not found.");
+    }
+
+    @Override
+    public void invalidInput(String message) {
+        out.println("Error: " + message);
+    }
+
+    @Override
+    public void categoryQueried(String category, int itemCount) {
+        if (itemCount == 0) {
+            out.println("No items found in the category: '" + category + "'. Please check the category or try adding items.");
+        } else {
+            out.println("Items in category '" + category + "':");
+        }
+    }
+
+    @Override
+    public void topKQueried(int k, int itemCount) {
+        if (itemCount == 0) {
+            out.println("Error: No items available to show the top " + k + " items. Inventory might be empty.");
+        } else {
+            out.println("Top " + k + " items with the highest quantity:");
+        }
+    }
+
+    @Override
+    public void bottomKQueried(int k, int itemCount) {
+        if (itemCount == 0) {
+            out.println("Error: No items available to show the bottom " + k + " items. Inventory might be empty.");
+        } else {
+            out.println("Bottom " + k + " items with the lowest quantity:");
+        }
+    }
+
+    @Override
+    public void mergeStarted() {
+        out.println("Merging inventory from another warehouse...");
+    }
+
+    @Override
+    public void itemMerged(Main.Item item, boolean added) {
+        out.println((added ? "Added new item: " : "Updated item (higher quantity): ") + item);
+    }
+
+    @Override
+    public void mergeRejected(String id) {
+        out.println("Error: Merge policy returned a negative quantity for item " + id + ".");
+    }
+}
@@ -0,0 +1,88 @@
+// Packs item IDs into longs so they can be hashed and compared as primitives.
+//
+//   Canonical decimal numbers ("0", "42"; no sign or leading zeros; up to 18 digits) encode as
+//   their own value, which is below 10^18.
+//   Other IDs of 1 to 10 characters from [0-9A-Za-z] encode in base 63, with each character as
+//   a digit from 1 to 62, plus bit 62 set. No digit is 0, so IDs of different lengths cannot
+//   collide. Fixed-width SKUs such as "AB12345" and zero-padded numbers such as "007" take
+//   this form.
+//
+// The two ranges cannot overlap, so distinct IDs always get distinct codes. Any other ID is not
+// encodable and must be kept by its String.
+final class IdCodec
+{
+    static final long NOT_ENCODABLE = -1;
+
+    private static final long ALPHANUMERIC = 1L << 62;
+    private static final int MAX_DIGITS = 18;
+    private static final int MAX_ALPHANUMERIC = 10;
+    private static final int BASE = 63;
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private IdCodec() {
+    }
+
+    // Code for an ID, or NOT_ENCODABLE
+    static long encode(String id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_DIGITS) {
+            return NOT_ENCODABLE;
+        }
+        if (length == 1 || id.charAt(0) != '0') {
+            long value = 0;
+            int i = 0;
+            while (i < length) {
+                char c = id.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (i == length) {
+                return value;
+            }
+        }
+        if (length > MAX_ALPHANUMERIC) {
+            return NOT_ENCODABLE;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digit(id.charAt(i));
+            if (digit < 0) {
+                return NOT_ENCODABLE;
+            }
+            value = value * BASE + digit;
+        }
+        return ALPHANUMERIC | value;
+    }
+
+    // The ID a code was made from
+    static String decode(long code) {
+        if ((code & ALPHANUMERIC) == 0) {
+            return Long.toString(code);
+        }
+        long value = code & ~ALPHANUMERIC;
+        char[] chars = new char[MAX_ALPHANUMERIC];
+        int start = chars.length;
+        while (value > 0) {
+            chars[--start] = ALPHABET.charAt((int) (value % BASE) - 1);
+            value /= BASE;
+        }
+        return new String(chars, start, chars.length - start);
+    }
+
+    // Digit value 1 to 62 of an alphanumeric character, or -1
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 37;
+        }
+        return -1;
+    }
+}
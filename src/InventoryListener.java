@@ -0,0 +1,39 @@
+// Receives inventory events in place of direct console output.
+// Every method is a no-op by default, so the inventory builds no strings and does
+// no I/O unless a listener that needs them is installed.
+interface InventoryListener
+{
+    // Listener that ignores every event; the inventory default
+    InventoryListener NONE = new InventoryListener() {};
+
+    default void itemAdded(Main.Item item) {}
+
+    default void itemUpdated(Main.Item item) {}
+
+    default void itemRemoved(Main.Item item) {}
+
+    // Quantity is below the restock threshold after an add or update
+    default void lowStock(Main.Item item) {}
+
+    default void itemNotFound(String id) {}
+
+    // Rejected input; message is a constant, never built per call
+    default void invalidInput(String message) {}
+
+    // itemCount is 0 when the category is unknown or empty
+    default void categoryQueried(String category, int itemCount) {}
+
+    // itemCount is 0 when the inventory is empty
+    default void topKQueried(int k, int itemCount) {}
+
+    // itemCount is 0 when the inventory or category is empty
+    default void bottomKQueried(int k, int itemCount) {}
+
+    default void mergeStarted() {}
+
+    // added is true for items new to this inventory, false for quantity updates
+    default void itemMerged(Main.Item item, boolean added) {}
+
+    // The merge policy returned a negative quantity for a shared item, which is left unchanged
+    default void mergeRejected(String id) {}
+}
@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+// Compact, versioned binary snapshot of an inventory.
+//
+// Layout (big-endian; varint = unsigned LEB128):
+//   header     int magic "INVS", int version, long item count, int category count
+//   categories per category: varint name length, UTF-8 name, varint (restock threshold + 1)
+//   items      per item: varint category index, int quantity, long write version,
+//              varint (restock threshold + 1), varint id length, UTF-8 id, varint name length, UTF-8 name
+//              (version 1 files have no write version; their items load with version 0)
+//   trailer    long CRC32 of every byte before it
+//
+// Category names are stored once in the dictionary and items refer to them by index.
+// Loading maps the file with FileChannel.map, decodes the items in parallel chunks and
+// rebuilds the indexes in bulk through Main.restore.
+class InventorySnapshot
+{
+    static final int MAGIC = 0x494E5653; // "INVS"
+    static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int TRAILER_BYTES = 8;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final int ITEMS_PER_CHUNK = 1 << 16;
+
+    private InventorySnapshot() {
+    }
+
+    // Write the inventory to path, replacing any existing file only once the new one is complete
+    public static void save(Main inventory, Path path) throws IOException {
+        Collection<Main.Item> items = inventory.items();
+        Map<String, Integer> thresholds = inventory.categoryRestockThresholds();
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Main.Item item : items) {
+            dictionary.putIfAbsent(item.getCategory(), dictionary.size());
+        }
+        for (String category : thresholds.keySet()) {
+            dictionary.putIfAbsent(category, dictionary.size());
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putLong(items.size());
+            writer.putInt(dictionary.size());
+
+            for (String category : dictionary.keySet()) {
+                writer.putString(category);
+                Integer threshold = thresholds.get(category);
+                writer.putVarint(threshold == null ? 0 : threshold + 1);
+            }
+            for (Main.Item item : items) {
+                writer.putVarint(dictionary.get(item.getCategory()));
+                writer.putInt(item.getQuantity());
+                writer.putLong(item.getVersion());
+                writer.putVarint(item.restockThreshold + 1);
+                writer.putString(item.getId());
+                writer.putString(item.getName());
+            }
+            writer.finish();
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Read a snapshot written by save; fails on a bad magic, unknown version or checksum mismatch
+    public static Main load(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Snapshot is truncated: " + path);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshots over 2 GB are not supported: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+
+        int contentBytes = buffer.capacity() - TRAILER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(contentBytes));
+        if (crc.getValue() != buffer.getLong(contentBytes)) {
+            throw new IOException("Snapshot checksum mismatch: " + path);
+        }
+
+        try {
+            return decode(buffer, contentBytes, path);
+        } catch (UncheckedIOException e) {
+            throw new IOException("Corrupt snapshot: " + path, e.getCause());
+        }
+    }
+
+    private static Main decode(ByteBuffer buffer, int contentBytes, Path path) throws IOException {
+        Reader header = new Reader(buffer, 0, contentBytes);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not an inventory snapshot: " + path);
+        }
+        int version = header.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+        long count = header.getLong();
+        int categoryCount = header.getInt();
+        if (count < 0 || count > Integer.MAX_VALUE - 8 || categoryCount < 0) {
+            throw new IOException("Corrupt snapshot header: " + path);
+        }
+        int itemCount = (int) count;
+
+        int[] categories = new int[categoryCount]; // Dictionary index to CategoryRegistry ID
+        Map<String, Integer> thresholds = new HashMap<>();
+        for (int i = 0; i < categoryCount; i++) {
+            String category = header.getString();
+            categories[i] = CategoryRegistry.intern(category);
+            int threshold = header.getVarint() - 1;
+            if (threshold >= 0) {
+                thresholds.put(category, threshold);
+            }
+        }
+
+        // Record lengths vary, so find where each chunk starts with a cheap skipping pass
+        int chunks = (itemCount + ITEMS_PER_CHUNK - 1) / ITEMS_PER_CHUNK;
+        int[] chunkStarts = new int[chunks];
+        boolean versioned = version >= 2;
+        Reader scanner = new Reader(buffer, header.position, contentBytes);
+        for (int i = 0; i < itemCount; i++) {
+            if (i % ITEMS_PER_CHUNK == 0) {
+                chunkStarts[i / ITEMS_PER_CHUNK] = scanner.position;
+            }
+            scanner.skipItem(versioned);
+        }
+        if (scanner.position != contentBytes) {
+            throw new IOException("Corrupt snapshot body: " + path);
+        }
+
+        Main.Item[] items = new Main.Item[itemCount];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            Reader reader = new Reader(buffer, chunkStarts[chunk], contentBytes);
+            int end = Math.min(itemCount, (chunk + 1) * ITEMS_PER_CHUNK);
+            for (int i = chunk * ITEMS_PER_CHUNK; i < end; i++) {
+                items[i] = reader.getItem(categories, versioned);
+            }
+        });
+        return Main.restore(items, thresholds);
+    }
+
+    // Buffered sequential writer that keeps a running CRC32 of everything written
+    private static final class Writer {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        // Flush the content, then append the checksum trailer
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Cursor over the mapped file using absolute reads, so chunks can be decoded concurrently
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final int limit;
+        int position;
+
+        Reader(ByteBuffer buffer, int position, int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        int getInt() {
+            check(4);
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        long getLong() {
+            check(8);
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        int getVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                check(1);
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new UncheckedIOException(new IOException("Malformed varint at offset " + position));
+        }
+
+        String getString() {
+            int length = getVarint();
+            check(length);
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Main.Item getItem(int[] categories, boolean versioned) {
+            int category = getVarint();
+            if (category < 0 || category >= categories.length) {
+                throw new UncheckedIOException(new IOException("Unknown category index " + category));
+            }
+            int quantity = getInt();
+            long version = versioned ? getLong() : 0;
+            int threshold = getVarint() - 1;
+            String id = getString();
+            String name = getString();
+            Main.Item item = new Main.Item(id, name, categories[category], quantity);
+            item.restockThreshold = threshold;
+            item.version = version;
+            return item;
+        }
+
+        void skipItem(boolean versioned) {
+            getVarint();
+            skip(versioned ? 12 : 4);
+            getVarint();
+            skip(getVarint());
+            skip(getVarint());
+        }
+
+        private void skip(int bytes) {
+            check(bytes);
+            position += bytes;
+        }
+
+        private void check(int bytes) {
+            if (bytes < 0 || position > limit - bytes) {
+                throw new UncheckedIOException(new IOException("Unexpected end of snapshot at offset " + position));
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.*;
+
+// Indexed binary max-heap of items ordered by quantity.
+// Every item stores its own slot in heapIndex, so remove and update are O(log n)
+// instead of the linear scan PriorityQueue.remove(Object) does. Items are ordered by heapKey,
+// a copy of the quantity taken on add and update, so a quantity changed concurrently
+// without the heap's lock cannot corrupt the heap order.
+class ItemHeap
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Main.Item[] heap;
+    private int size;
+
+    ItemHeap() {
+        heap = new Main.Item[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Item with the highest quantity, or null if the heap is empty
+    public Main.Item peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    public void add(Main.Item item) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = item;
+        item.heapIndex = size;
+        item.heapKey = item.getQuantity();
+        siftUp(size++);
+    }
+
+    // Remove an item in O(log n) using its stored slot
+    public boolean remove(Main.Item item) {
+        int index = item.heapIndex;
+        if (index < 0 || index >= size || heap[index] != item) {
+            return false;
+        }
+
+        int last = --size;
+        Main.Item moved = heap[last];
+        heap[last] = null;
+        item.heapIndex = -1;
+
+        if (index != last) {
+            heap[index] = moved;
+            moved.heapIndex = index;
+            if (!siftUp(index)) {
+                siftDown(index);
+            }
+        }
+        return true;
+    }
+
+    // Restore heap order after the item's quantity was changed in place
+    public void update(Main.Item item) {
+        int index = item.heapIndex;
+        if (index < 0 || index >= size || heap[index] != item) {
+            return;
+        }
+        item.heapKey = item.getQuantity();
+        if (!siftUp(index)) {
+            siftDown(index);
+        }
+    }
+
+    // Add new items and re-key items whose quantity changed, as one batch.
+    // When the batch is small next to the heap, each item is sifted on its own in O(log n);
+    // otherwise everything is appended and the heap is rebuilt bottom-up once in O(n).
+    public void applyBatch(List<Main.Item> added, List<Main.Item> updated) {
+        int total = size + added.size();
+        long changes = (long) added.size() + updated.size();
+        if (changes * (32 - Integer.numberOfLeadingZeros(total)) < total) {
+            for (Main.Item item : updated) {
+                update(item);
+            }
+            for (Main.Item item : added) {
+                add(item);
+            }
+            return;
+        }
+
+        if (total > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(total, heap.length * 2));
+        }
+        for (Main.Item item : added) {
+            heap[size] = item;
+            item.heapIndex = size++;
+        }
+        for (int i = 0; i < size; i++) {
+            heap[i].heapKey = heap[i].getQuantity();
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    // The k items with the highest quantity, highest first, in O(k log k).
+    // Walks the heap with a small frontier of slots instead of polling, so the heap is untouched.
+    public List<Main.Item> highest(int k) {
+        List<Main.Item> result = new ArrayList<>(Math.min(k, size));
+        if (size == 0 || k <= 0) {
+            return result;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> compare(heap[b], heap[a]));
+        frontier.add(0);
+        while (result.size() < k && !frontier.isEmpty()) {
+            int index = frontier.poll();
+            result.add(heap[index]);
+            int child = 2 * index + 1;
+            if (child < size) {
+                frontier.add(child);
+                if (child + 1 < size) {
+                    frontier.add(child + 1);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Snapshot of the heap contents, in heap order
+    public List<Main.Item> toList() {
+        return new ArrayList<>(Arrays.asList(heap).subList(0, size));
+    }
+
+    private boolean siftUp(int index) {
+        Main.Item item = heap[index];
+        int start = index;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Main.Item parentItem = heap[parent];
+            if (compare(item, parentItem) <= 0) {
+                break;
+            }
+            heap[index] = parentItem;
+            parentItem.heapIndex = index;
+            index = parent;
+        }
+        heap[index] = item;
+        item.heapIndex = index;
+        return index != start;
+    }
+
+    private void siftDown(int index) {
+        Main.Item item = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) > 0) {
+                child = right;
+            }
+            if (compare(item, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = item;
+        item.heapIndex = index;
+    }
+
+    // Higher quantity first; Integer.compare avoids the overflow of b - a
+    private static int compare(Main.Item a, Main.Item b) {
+        return Integer.compare(a.heapKey, b.heapKey);
+    }
+}
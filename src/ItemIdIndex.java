@@ -0,0 +1,170 @@
+import java.util.*;
+
+// Items by ID. IDs that IdCodec packs into a long are kept in a primitive open-addressing table
+// (linear probing, Fibonacci hashing, backward-shift deletion), so looking them up costs no
+// String.hashCode, equals or boxing. Any other ID falls back to a HashMap.
+// Safe for concurrent readers while nobody writes, like HashMap.
+class ItemIdIndex
+{
+    private static final long EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Main.Item[] items;
+    private int shift; // 64 - log2(capacity)
+    private int encoded; // Items in the primitive table
+    private final Map<String, Main.Item> others = new HashMap<>();
+
+    private final Collection<Main.Item> values = new AbstractCollection<>() {
+        @Override
+        public Iterator<Main.Item> iterator() {
+            return new Iterator<>() {
+                private int slot = nextSlot(0);
+                private final Iterator<Main.Item> rest = others.values().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    return slot < keys.length || rest.hasNext();
+                }
+
+                @Override
+                public Main.Item next() {
+                    if (slot < keys.length) {
+                        Main.Item item = items[slot];
+                        slot = nextSlot(slot + 1);
+                        return item;
+                    }
+                    return rest.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ItemIdIndex.this.size();
+        }
+    };
+
+    ItemIdIndex(int expectedItems) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 2L < expectedItems * 3L) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public int size() {
+        return encoded + others.size();
+    }
+
+    public Main.Item get(String id) {
+        long key = IdCodec.encode(id);
+        if (key == IdCodec.NOT_ENCODABLE) {
+            return others.get(id);
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return items[slot];
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    // Map id to item; returns the item it replaced, or null
+    public Main.Item put(String id, Main.Item item) {
+        long key = IdCodec.encode(id);
+        if (key == IdCodec.NOT_ENCODABLE) {
+            return others.put(id, item);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                Main.Item previous = items[slot];
+                items[slot] = item;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        items[slot] = item;
+        if (++encoded * 3L > keys.length * 2L) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    // Unmap id; returns the item it was mapped to, or null
+    public Main.Item remove(String id) {
+        long key = IdCodec.encode(id);
+        if (key == IdCodec.NOT_ENCODABLE) {
+            return others.remove(id);
+        }
+        int mask = keys.length - 1;
+        int gap = slot(key);
+        while (keys[gap] != key) {
+            if (keys[gap] == EMPTY) {
+                return null;
+            }
+            gap = (gap + 1) & mask;
+        }
+        Main.Item removed = items[gap];
+        for (int slot = (gap + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+            // Move the entry back unless its home lies cyclically in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                items[gap] = items[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        items[gap] = null;
+        encoded--;
+        return removed;
+    }
+
+    // Live, read-only view of every item: the primitive table first, then the fallback map
+    public Collection<Main.Item> values() {
+        return values;
+    }
+
+    private int nextSlot(int from) {
+        while (from < keys.length && keys[from] == EMPTY) {
+            from++;
+        }
+        return from;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        items = new Main.Item[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Main.Item[] oldItems = items;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                items[slot] = oldItems[i];
+            }
+        }
+    }
+}
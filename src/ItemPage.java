@@ -0,0 +1,61 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// One page of a quantity-ordered category scan, and the cursor that resumes after it.
+// A cursor names the (quantity, ID) key of the last item returned rather than a position, so
+// items added or removed between calls do not shift the following pages; an item whose quantity
+// changes may move across the cursor and be skipped or seen twice. Treat cursors as opaque.
+class ItemPage
+{
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final List<Main.Item> items;
+    private final String nextCursor;
+
+    ItemPage(List<Main.Item> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Items of this page, highest quantity first
+    public List<Main.Item> getItems() { return items; }
+
+    // Cursor for the next page, or null if this page is the last
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    // Cursor resuming after the given item
+    static String cursorAfter(Main.Item item) {
+        byte[] id = item.getId().getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(ByteBuffer.allocate(4 + id.length).putInt(item.getQuantity()).put(id).array());
+    }
+
+    // Key a cursor resumes after; parse throws IllegalArgumentException for a malformed cursor
+    static final class Cursor {
+        final int quantity;
+        final String id;
+
+        private Cursor(int quantity, String id) {
+            this.quantity = quantity;
+            this.id = id;
+        }
+
+        static Cursor parse(String cursor) {
+            byte[] bytes = DECODER.decode(cursor);
+            if (bytes.length <= 4) {
+                throw new IllegalArgumentException("Cursor is too short.");
+            }
+            return new Cursor(ByteBuffer.wrap(bytes).getInt(), new String(bytes, 4, bytes.length - 4, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPage{items=" + items.size() + ", nextCursor=" + nextCursor + '}';
+    }
+}
@@ -0,0 +1,30 @@
+// One row of a batch passed to Main.addOrUpdateItems
+class ItemUpdate
+{
+    private final String id;
+    private final String name;
+    private final String category;
+    private final int quantity;
+
+    public ItemUpdate(String id, String name, String category, int quantity) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.quantity = quantity;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public String getCategory() { return category; }
+    public int getQuantity() { return quantity; }
+
+    @Override
+    public String toString() {
+        return "ItemUpdate{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", category='" + category + '\'' +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.*;
+
+// Set of items currently below their restock threshold.
+// Items remember their own slot in lowStockSlot, so add and remove are O(1) swaps and
+// listing the set costs time proportional to its size, not to the inventory's.
+class LowStockIndex
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Main.Item[] items = new Main.Item[INITIAL_CAPACITY];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(Main.Item item) {
+        int slot = item.lowStockSlot;
+        return slot >= 0 && slot < size && items[slot] == item;
+    }
+
+    // Returns whether the item was not already in the set
+    public boolean add(Main.Item item) {
+        if (contains(item)) {
+            return false;
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size] = item;
+        item.lowStockSlot = size++;
+        return true;
+    }
+
+    // Returns whether the item was in the set
+    public boolean remove(Main.Item item) {
+        if (!contains(item)) {
+            return false;
+        }
+        int slot = item.lowStockSlot;
+        Main.Item last = items[--size];
+        items[slot] = last;
+        last.lowStockSlot = slot;
+        items[size] = null;
+        item.lowStockSlot = -1;
+        return true;
+    }
+
+    public List<Main.Item> toList() {
+        return new ArrayList<>(Arrays.asList(items).subList(0, size));
+    }
+}
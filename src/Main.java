@@ -1,194 +1,1312 @@
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Main
 {
-    private static final int DEFAULT_RESTOCK_THRESHOLD = 10;
+    static final int DEFAULT_RESTOCK_THRESHOLD = 10;
+    private static final int PARALLEL_CATEGORY_THRESHOLD = 256; // Fewer categories are ranked on the calling thread
 
     // Data structure to store inventory
-    private final Map<String, Item> inventoryMap; // For unique item tracking by ID
-    private final Map<String, PriorityQueue<Item>> categoryMap; // For category-wise sorting
+    private final ItemIdIndex inventoryMap; // For unique item tracking by ID; numeric IDs as longs
+    private ItemHeap[] categoryHeaps; // For category-wise sorting, indexed by CategoryRegistry ID
+    private CategoryStats[] categoryStats; // Running aggregates, indexed by CategoryRegistry ID
+    private final CategoryTree categoryTree; // Categories by path, with subtree quantity rollups
+    private QuantityIndex[] categoryOrders; // Quantity-ordered index by category ID, built on first ordered query
+    private NameIndex nameIndex; // Items by normalized name for prefix search, built on first search
+    private TrigramIndex trigramIndex; // Name trigrams for fuzzy search, built on first search
+    private final QuantityIndex quantityIndex; // Global ordering by quantity for top-k queries
+    private final LowStockIndex lowStockIndex; // Items currently below their restock threshold
+    private int[] categoryThresholds; // Per-category restock thresholds by category ID, -1 where unset
+    private InventoryListener listener = InventoryListener.NONE; // Event sink, silent by default
+    private WriteAheadLog writeAheadLog; // Durable record of mutations, written before they apply
 
     public Main() {
-        inventoryMap = new HashMap<>();
-        categoryMap = new TreeMap<>();
+        this(16);
+    }
+
+    // Pre-size the ID map for a known number of items, e.g. when loading a snapshot
+    private Main(int expectedItems) {
+        inventoryMap = new ItemIdIndex(expectedItems);
+        categoryHeaps = new ItemHeap[CategoryRegistry.size()];
+        categoryStats = new CategoryStats[CategoryRegistry.size()];
+        categoryTree = new CategoryTree();
+        categoryOrders = new QuantityIndex[0];
+        quantityIndex = new QuantityIndex();
+        lowStockIndex = new LowStockIndex();
+        categoryThresholds = new int[0];
+    }
+
+    // Install an event sink; pass null to go back to the silent default
+    public void setListener(InventoryListener listener) {
+        this.listener = listener != null ? listener : InventoryListener.NONE;
+    }
+
+    // Log every later mutation to wal before it is applied; pass null to stop logging.
+    // Attach the log only after recovery, so replayed records are not logged again.
+    public void setWriteAheadLog(WriteAheadLog wal) {
+        this.writeAheadLog = wal;
     }
 
     // Add or update an item in the inventory
     public void addOrUpdateItem(String id, String name, String category, int quantity) {
         // Check for invalid input
-        if (id == null || id.isEmpty()) {
-            System.out.println("Error: Item ID cannot be null or empty.");
-            return;
-        }
-        if (name == null || name.isEmpty()) {
-            System.out.println("Error: Item name cannot be null or empty.");
+        String error = validate(id, name, category, quantity);
+        if (error != null) {
+            listener.invalidInput(error);
             return;
         }
-        if (category == null || category.isEmpty()) {
-            System.out.println("Error: Category cannot be null or empty.");
-            return;
-        }
-        if (quantity < 0) {
-            System.out.println("Error: Quantity cannot be negative.");
-            return;
+        if (writeAheadLog != null) {
+            writeAheadLog.logPut(id, name, category, quantity);
         }
 
-        Item newItem = new Item(id, name, category, quantity);
-
         // Update or add the item
-        if (inventoryMap.containsKey(id)) {
-            Item existingItem = inventoryMap.get(id);
-            removeFromCategory(existingItem); // Remove from category before updating
-
+        Item existingItem = inventoryMap.get(id);
+        if (existingItem != null) {
             existingItem.setName(name);
-            existingItem.setCategory(category);
-            existingItem.setQuantity(quantity);
-            addToCategory(existingItem);
+            existingItem.touch();
+            int categoryId = CategoryRegistry.intern(category);
+            if (existingItem.getCategoryId() == categoryId) {
+                changeQuantity(existingItem, quantity); // Re-position in O(log n)
+            } else {
+                changeCategory(existingItem, categoryId, quantity);
+            }
 
-            System.out.println("Item successfully updated: " + existingItem);
+            listener.itemUpdated(existingItem);
 
             // Restock notification
-            if (quantity < DEFAULT_RESTOCK_THRESHOLD) {
-                System.out.println("Warning: Item \"" + name + "\" is low in stock after update. Quantity: " + quantity + ". Restock soon.");
+            if (lowStockIndex.contains(existingItem)) {
+                listener.lowStock(existingItem);
             }
         } else {
+            Item newItem = new Item(id, name, category, quantity);
             inventoryMap.put(id, newItem);
             addToCategory(newItem);
-            System.out.println("Item successfully added: " + newItem);
+            quantityIndex.insert(newItem.quantityNode);
+            refreshNameIndexes(newItem);
+            refreshLowStock(newItem);
+            listener.itemAdded(newItem);
 
             // Restock notification
-            if (quantity < DEFAULT_RESTOCK_THRESHOLD) {
-                System.out.println("Warning: Item \"" + name + "\" is low in stock. Quantity: " + quantity + ". Consider restocking soon.");
+            if (lowStockIndex.contains(newItem)) {
+                listener.lowStock(newItem);
+            }
+        }
+    }
+
+    // Add or update many items at once.
+    // Rows are validated up front and rejected rows are reported in the result rather than to the
+    // listener. When an ID repeats, its last row wins, as if the rows were applied in order.
+    // Each touched category heap is then adjusted once for the whole batch instead of once per row.
+    public BatchResult addOrUpdateItems(Collection<ItemUpdate> rows) {
+        BatchResult result = new BatchResult();
+        if (rows == null) {
+            listener.invalidInput("Rows cannot be null.");
+            return result;
+        }
+
+        Map<String, ItemUpdate> latest = new LinkedHashMap<>();
+        int row = 0;
+        for (ItemUpdate update : rows) {
+            String error = update == null ? "Row cannot be null."
+                    : validate(update.getId(), update.getName(), update.getCategory(), update.getQuantity());
+            if (error != null) {
+                result.recordError(row, update == null ? null : update.getId(), error);
+            } else if (latest.put(update.getId(), update) != null) {
+                result.recordUpdated(); // An earlier row for this ID is superseded
+            }
+            row++;
+        }
+
+        // Log the whole batch before applying any of it, so a failing log leaves the indexes untouched
+        if (writeAheadLog != null) {
+            for (ItemUpdate update : latest.values()) {
+                writeAheadLog.logPut(update.getId(), update.getName(), update.getCategory(), update.getQuantity());
+            }
+        }
+
+        Map<Integer, List<Item>> added = new HashMap<>(); // Items entering a category heap, by category ID
+        Map<Integer, List<Item>> updated = new HashMap<>(); // Items re-keyed within their heap
+        for (ItemUpdate update : latest.values()) {
+            Item item = inventoryMap.get(update.getId());
+            if (item == null) {
+                item = new Item(update.getId(), update.getName(), update.getCategory(), update.getQuantity());
+                inventoryMap.put(item.getId(), item);
+                quantityIndex.insert(item.quantityNode);
+                countIn(item);
+                added.computeIfAbsent(item.getCategoryId(), c -> new ArrayList<>()).add(item);
+                result.recordAdded();
+            } else {
+                item.setName(update.getName());
+                item.touch();
+                int categoryId = CategoryRegistry.intern(update.getCategory());
+                if (item.getCategoryId() == categoryId) {
+                    setQuantityInCategory(item, update.getQuantity());
+                    updated.computeIfAbsent(categoryId, c -> new ArrayList<>()).add(item);
+                } else {
+                    removeFromCategory(item);
+                    item.setCategoryId(categoryId);
+                    item.setQuantity(update.getQuantity());
+                    countIn(item);
+                    added.computeIfAbsent(categoryId, c -> new ArrayList<>()).add(item);
+                }
+                quantityIndex.update(item.quantityNode);
+                result.recordUpdated();
             }
+            refreshNameIndexes(item);
+            refreshLowStock(item);
+        }
+
+        Set<Integer> touched = new HashSet<>(added.keySet());
+        touched.addAll(updated.keySet());
+        for (int categoryId : touched) {
+            heapFor(categoryId).applyBatch(added.getOrDefault(categoryId, Collections.emptyList()),
+                    updated.getOrDefault(categoryId, Collections.emptyList()));
         }
+        return result;
     }
 
     // Remove an item by ID
     public void removeItem(String id) {
         if (id == null || id.isEmpty()) {
-            System.out.println("Error: Item ID cannot be null or empty.");
+            listener.invalidInput("Item ID cannot be null or empty.");
             return;
         }
 
-        if (inventoryMap.containsKey(id)) {
-            Item item = inventoryMap.remove(id);
+        Item item = inventoryMap.get(id);
+        if (item != null) {
+            if (writeAheadLog != null) {
+                writeAheadLog.logRemove(id);
+            }
+            inventoryMap.remove(id);
             removeFromCategory(item);
-            System.out.println("Item successfully removed: " + item);
+            quantityIndex.remove(item.quantityNode);
+            if (nameIndex != null) {
+                nameIndex.remove(item.nameNode);
+            }
+            if (trigramIndex != null) {
+                trigramIndex.remove(item);
+            }
+            lowStockIndex.remove(item);
+            listener.itemRemoved(item);
         } else {
-            System.out.println("Error: Item with ID '" + id + "' not found. Cannot remove it.");
+            listener.itemNotFound(id);
         }
     }
 
     // Get all items in a category
     public List<Item> getItemsByCategory(String category) {
         if (category == null || category.isEmpty()) {
-            System.out.println("Error: Category cannot be null or empty.");
+            listener.invalidInput("Category cannot be null or empty.");
             return Collections.emptyList();
         }
 
-        PriorityQueue<Item> items = categoryMap.getOrDefault(category, new PriorityQueue<>());
-        if (items.isEmpty()) {
-            System.out.println("No items found in the category: '" + category + "'. Please check the category or try adding items.");
+        ItemHeap items = heapOf(CategoryRegistry.find(category));
+        if (items == null || items.isEmpty()) {
+            listener.categoryQueried(category, 0);
             return Collections.emptyList();
         }
 
-        System.out.println("Items in category '" + category + "':");
-        return new ArrayList<>(items);
+        listener.categoryQueried(category, items.size());
+        return items.toList();
+    }
+
+    // Get one page of a category's items, highest quantity first (ties by descending ID), in
+    // O(pageSize + log n) without copying the category. Pass a null cursor for the first page and
+    // each page's next cursor to continue. The category's ordered index is built on its first
+    // ordered query and kept up to date from then on.
+    public ItemPage getItemsByCategory(String category, int pageSize, String cursor) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return new ItemPage(Collections.emptyList(), null);
+        }
+        if (pageSize <= 0) {
+            listener.invalidInput("Page size must be a positive integer.");
+            return new ItemPage(Collections.emptyList(), null);
+        }
+        ItemPage.Cursor after = null;
+        if (cursor != null) {
+            try {
+                after = ItemPage.Cursor.parse(cursor);
+            } catch (IllegalArgumentException e) {
+                listener.invalidInput("Cursor is not valid.");
+                return new ItemPage(Collections.emptyList(), null);
+            }
+        }
+
+        int categoryId = CategoryRegistry.find(category);
+        if (heapOf(categoryId) == null) {
+            listener.categoryQueried(category, 0);
+            return new ItemPage(Collections.emptyList(), null);
+        }
+        QuantityIndex order = orderFor(categoryId);
+        int limit = pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1; // One extra to detect a next page
+        List<Item> items = after == null
+                ? order.descendingAfter(0, null, limit)
+                : order.descendingAfter(after.quantity, after.id, limit);
+        String next = null;
+        if (items.size() > pageSize) {
+            items.remove(pageSize);
+            next = ItemPage.cursorAfter(items.get(pageSize - 1));
+        }
+        listener.categoryQueried(category, items.size());
+        return new ItemPage(items, next);
+    }
+
+    // Aggregates of a category in O(1): item count, total, lowest and highest quantity, and how
+    // many items are below their restock threshold. After the last item at the lowest quantity
+    // leaves it, the next call reads the new lowest from the category's ordered index in
+    // O(log n). The first such call builds that index, and from then on every change in the
+    // category also pays O(log n) to maintain it, where the aggregates alone cost O(1); the same
+    // index serves the category's ordered queries. The result is a copy; a category without
+    // items gives all zeros.
+    public CategoryStats getCategoryStats(String category) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return new CategoryStats();
+        }
+
+        int categoryId = CategoryRegistry.find(category);
+        CategoryStats stats = categoryId >= 0 && categoryId < categoryStats.length ? categoryStats[categoryId] : null;
+        if (stats == null) {
+            return new CategoryStats();
+        }
+        ItemHeap heap = heapOf(categoryId);
+        return stats.snapshot(heap, stats.isMinStale() && heap != null ? orderFor(categoryId) : null);
+    }
+
+    // Get all items of a category path and of every category below it, e.g. "Electronics" covers
+    // "Electronics/Computers/Laptops". Paths match whole segments, and categories come in path order.
+    public List<Item> getItemsUnderCategory(String path) {
+        if (path == null || path.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return Collections.emptyList();
+        }
+
+        List<Item> result = new ArrayList<>();
+        for (int categoryId : categoryTree.subtreeCategories(path)) {
+            ItemHeap items = heapOf(categoryId);
+            if (items != null) {
+                result.addAll(items.toList());
+            }
+        }
+        listener.categoryQueried(path, result.size());
+        return result;
+    }
+
+    // Total quantity of a category path and every category below it, in O(log n) for n categories
+    public long getSubtreeQuantity(String path) {
+        if (path == null || path.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return 0;
+        }
+        return categoryTree.subtreeTotal(path);
     }
 
     // Get the top k items by quantity
     public List<Item> getTopKItems(int k) {
         if (k <= 0) {
-            System.out.println("Error: 'k' must be a positive integer. Please provide a valid number.");
+            listener.invalidInput("'k' must be a positive integer. Please provide a valid number.");
             return Collections.emptyList();
         }
 
-        PriorityQueue<Item> maxHeap = new PriorityQueue<>((a, b) -> b.getQuantity() - a.getQuantity());
-        maxHeap.addAll(inventoryMap.values());
+        List<Item> topKItems = quantityIndex.highest(k);
 
-        List<Item> topKItems = new ArrayList<>();
-        while (k-- > 0 && !maxHeap.isEmpty()) {
-            topKItems.add(maxHeap.poll());
+        listener.topKQueried(k, topKItems.size());
+        return topKItems;
+    }
+
+    // Get the top k items of every category, highest first, keyed by category name in sorted order.
+    // Each category is read from its ordered index, so ties break by ID as in getTopKItems, in
+    // O(k + log n) without copying the rest; the first call builds the missing indexes.
+    // With many categories the work runs in parallel on the common pool, so the caller must not
+    // modify this inventory from another thread meanwhile.
+    public Map<String, List<Item>> getTopKPerCategory(int k) {
+        if (k <= 0) {
+            listener.invalidInput("'k' must be a positive integer. Please provide a valid number.");
+            return Collections.emptyMap();
         }
 
-        if (topKItems.isEmpty()) {
-            System.out.println("Error: No items available to show the top " + k + " items. Inventory might be empty.");
+        int[] categoryIds = IntStream.range(0, categoryHeaps.length)
+                .filter(categoryId -> categoryHeaps[categoryId] != null && !categoryHeaps[categoryId].isEmpty())
+                .toArray();
+        boolean parallel = categoryIds.length >= PARALLEL_CATEGORY_THRESHOLD;
+        int[] missing = Arrays.stream(categoryIds).filter(categoryId -> orderOf(categoryId) == null).toArray();
+        if (missing.length > 0) {
+            // Grow the index array for the highest ID first; the builds then only fill their own slots
+            orderFor(missing[missing.length - 1]);
+            IntStream builds = Arrays.stream(missing);
+            (parallel ? builds.parallel() : builds).forEach(this::orderFor);
+        }
+
+        IntStream categories = Arrays.stream(categoryIds);
+        if (parallel) {
+            categories = categories.parallel();
+        }
+        return categories.boxed().collect(Collectors.toMap(CategoryRegistry::name,
+                categoryId -> orderOf(categoryId).highest(k), (a, b) -> a, TreeMap::new));
+    }
+
+    // Get the k items with the lowest quantity, lowest first, e.g. to prioritize restocking
+    public List<Item> getBottomKItems(int k) {
+        if (k <= 0) {
+            listener.invalidInput("'k' must be a positive integer. Please provide a valid number.");
             return Collections.emptyList();
         }
 
-        System.out.println("Top " + k + " items with the highest quantity:");
-        return topKItems;
+        List<Item> bottomKItems = quantityIndex.lowest(k);
+
+        listener.bottomKQueried(k, bottomKItems.size());
+        return bottomKItems;
+    }
+
+    // Get the k items of a category with the lowest quantity, lowest first
+    public List<Item> getBottomKItems(String category, int k) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return Collections.emptyList();
+        }
+        if (k <= 0) {
+            listener.invalidInput("'k' must be a positive integer. Please provide a valid number.");
+            return Collections.emptyList();
+        }
+
+        QuantityIndex order = orderForQuery(category);
+        List<Item> bottomKItems = order == null ? Collections.emptyList() : order.lowest(k);
+
+        listener.bottomKQueried(k, bottomKItems.size());
+        return bottomKItems;
+    }
+
+    // Get the items with a quantity in [min, max], lowest first, in O(log n + result)
+    public List<Item> getItemsInQuantityRange(int min, int max) {
+        if (min > max) {
+            listener.invalidInput("Minimum quantity cannot exceed maximum quantity.");
+            return Collections.emptyList();
+        }
+        return quantityIndex.between(min, max);
+    }
+
+    // Get the items of a category with a quantity in [min, max], lowest first
+    public List<Item> getItemsInQuantityRange(String category, int min, int max) {
+        if (min > max) {
+            listener.invalidInput("Minimum quantity cannot exceed maximum quantity.");
+            return Collections.emptyList();
+        }
+        QuantityIndex order = orderForQuery(category);
+        return order == null ? Collections.emptyList() : order.between(min, max);
+    }
+
+    // Number of items with a quantity in [min, max], in O(log n)
+    public int countItemsInQuantityRange(int min, int max) {
+        if (min > max) {
+            listener.invalidInput("Minimum quantity cannot exceed maximum quantity.");
+            return 0;
+        }
+        return quantityIndex.countBetween(min, max);
+    }
+
+    // Number of items of a category with a quantity in [min, max]
+    public int countItemsInQuantityRange(String category, int min, int max) {
+        if (min > max) {
+            listener.invalidInput("Minimum quantity cannot exceed maximum quantity.");
+            return 0;
+        }
+        QuantityIndex order = orderForQuery(category);
+        return order == null ? 0 : order.countBetween(min, max);
+    }
+
+    // Quantity at the given percentile (0 to 100, nearest rank) in O(log n); -1 if there are no items
+    public int getQuantityPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            listener.invalidInput("Percentile must be between 0 and 100.");
+            return -1;
+        }
+        return percentileOf(quantityIndex, percentile);
+    }
+
+    // Quantity at the given percentile within a category; -1 if the category has no items
+    public int getQuantityPercentile(String category, double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            listener.invalidInput("Percentile must be between 0 and 100.");
+            return -1;
+        }
+        QuantityIndex order = orderForQuery(category);
+        return order == null ? -1 : percentileOf(order, percentile);
+    }
+
+    // Autocomplete: up to limit items whose name starts with prefix, highest quantity first.
+    // Names match case-insensitively, ignoring surrounding whitespace. Costs O(limit * log n)
+    // per call; the name index is built on the first search and kept up to date from then on.
+    public List<Item> searchByNamePrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            listener.invalidInput("Prefix cannot be null or empty.");
+            return Collections.emptyList();
+        }
+        if (limit <= 0) {
+            listener.invalidInput("Limit must be a positive integer.");
+            return Collections.emptyList();
+        }
+
+        if (nameIndex == null) {
+            nameIndex = new NameIndex();
+            nameIndex.build(inventoryMap.values(), Main::nameNode);
+        }
+        return nameIndex.highestWithPrefix(prefix, limit);
+    }
+
+    // Typo-tolerant search: up to limit items whose names share enough trigrams with the query,
+    // most similar first and, among equally similar names, highest quantity first. Only items
+    // sharing a trigram with the query are scored. The trigram index is built on the first
+    // search and updated incrementally from then on.
+    public List<Item> searchByName(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            listener.invalidInput("Query cannot be null or empty.");
+            return Collections.emptyList();
+        }
+        if (limit <= 0) {
+            listener.invalidInput("Limit must be a positive integer.");
+            return Collections.emptyList();
+        }
+
+        if (trigramIndex == null) {
+            trigramIndex = new TrigramIndex();
+            for (Item item : inventoryMap.values()) {
+                trigramIndex.update(item);
+            }
+        }
+        return trigramIndex.search(query, limit);
+    }
+
+    // Change an item's quantity by delta; fails if the item is missing or stock would go negative
+    public boolean adjustQuantity(String id, int delta) {
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return false;
+        }
+
+        Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return false;
+        }
+        long quantity = (long) item.getQuantity() + delta;
+        if (quantity < 0) {
+            listener.invalidInput("Quantity cannot be negative.");
+            return false;
+        }
+        if (quantity > Integer.MAX_VALUE) {
+            listener.invalidInput("Quantity is too large.");
+            return false;
+        }
+
+        if (writeAheadLog != null) {
+            writeAheadLog.logSetQuantity(id, (int) quantity);
+        }
+        item.touch();
+        changeQuantity(item, (int) quantity);
+        listener.itemUpdated(item);
+        if (lowStockIndex.contains(item)) {
+            listener.lowStock(item);
+        }
+        return true;
+    }
+
+    // Take n units only if at least n are in stock; returns whether the decrement happened
+    public boolean tryDecrement(String id, int n) {
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return false;
+        }
+        if (n <= 0) {
+            listener.invalidInput("Decrement must be a positive integer.");
+            return false;
+        }
+
+        Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return false;
+        }
+        if (item.getQuantity() < n) {
+            return false;
+        }
+
+        int quantity = item.getQuantity() - n;
+        if (writeAheadLog != null) {
+            writeAheadLog.logSetQuantity(id, quantity);
+        }
+        item.touch();
+        changeQuantity(item, quantity);
+        listener.itemUpdated(item);
+        if (lowStockIndex.contains(item)) {
+            listener.lowStock(item);
+        }
+        return true;
+    }
+
+    // Items below their restock threshold, in time proportional to the result
+    public List<Item> getLowStockItems() {
+        return lowStockIndex.toList();
+    }
+
+    // Set a restock threshold for one item, overriding its category's threshold
+    public void setItemRestockThreshold(String id, int threshold) {
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return;
+        }
+        if (threshold < 0) {
+            listener.invalidInput("Restock threshold cannot be negative.");
+            return;
+        }
+
+        Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return;
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.logItemThreshold(id, threshold);
+        }
+        item.restockThreshold = threshold;
+        refreshLowStock(item);
+    }
+
+    // Drop an item's own threshold so it falls back to its category's
+    public void clearItemRestockThreshold(String id) {
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return;
+        }
+
+        Item item = inventoryMap.get(id);
+        if (item == null) {
+            listener.itemNotFound(id);
+            return;
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.logItemThreshold(id, -1);
+        }
+        item.restockThreshold = -1;
+        refreshLowStock(item);
+    }
+
+    // Set the restock threshold for every item in a category without its own threshold
+    public void setCategoryRestockThreshold(String category, int threshold) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return;
+        }
+        if (threshold < 0) {
+            listener.invalidInput("Restock threshold cannot be negative.");
+            return;
+        }
+
+        if (writeAheadLog != null) {
+            writeAheadLog.logCategoryThreshold(category, threshold);
+        }
+        int categoryId = CategoryRegistry.intern(category);
+        putCategoryThreshold(categoryId, threshold);
+        refreshCategoryLowStock(categoryId);
+    }
+
+    // Drop a category's threshold so its items fall back to DEFAULT_RESTOCK_THRESHOLD
+    public void clearCategoryRestockThreshold(String category) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return;
+        }
+
+        int categoryId = CategoryRegistry.find(category);
+        if (categoryThreshold(categoryId) >= 0) {
+            if (writeAheadLog != null) {
+                writeAheadLog.logCategoryThreshold(category, -1);
+            }
+            categoryThresholds[categoryId] = -1;
+            refreshCategoryLowStock(categoryId);
+        }
     }
 
-    // Merge another inventory into this one
+    // Merge another inventory into this one, keeping the higher quantity for shared IDs
     public void mergeInventory(Main other) {
+        mergeInventory(other, MergePolicy.MAX);
+    }
+
+    // Merge another inventory into this one, resolving shared IDs with the given policy.
+    // Items new to this inventory keep their own restock threshold; shared items keep this one's.
+    public void mergeInventory(Main other, MergePolicy policy) {
         if (other == null) {
-            System.out.println("Error: Cannot merge with a null inventory.");
+            listener.invalidInput("Cannot merge with a null inventory.");
             return;
         }
+        if (policy == null) {
+            listener.invalidInput("Merge policy cannot be null.");
+            return;
+        }
+        if (other == this) {
+            return; // Every item is already here, as in mergeInventoryParallel
+        }
 
-        System.out.println("Merging inventory from another warehouse...");
+        listener.mergeStarted();
         for (Item otherItem : other.inventoryMap.values()) {
-            if (inventoryMap.containsKey(otherItem.getId())) {
-                Item existingItem = inventoryMap.get(otherItem.getId());
-                if (otherItem.getQuantity() > existingItem.getQuantity()) {
-                    removeFromCategory(existingItem);
-                    existingItem.setQuantity(otherItem.getQuantity());
-                    addToCategory(existingItem);
-                    System.out.println("Updated item (higher quantity): " + existingItem);
+            Item existingItem = inventoryMap.get(otherItem.getId());
+            if (existingItem != null) {
+                int quantity = policy.mergeQuantity(existingItem, otherItem);
+                boolean replace = policy.takesIncomingDetails(existingItem, otherItem) && !sameDetails(existingItem, otherItem);
+                if (quantity < 0) {
+                    listener.mergeRejected(existingItem.getId());
+                } else if (replace || quantity != existingItem.getQuantity()) {
+                    applyMerged(existingItem, otherItem, quantity, replace);
+                    listener.itemMerged(existingItem, false);
                 }
             } else {
                 addOrUpdateItem(otherItem.getId(), otherItem.getName(), otherItem.getCategory(), otherItem.getQuantity());
-                System.out.println("Added new item: " + otherItem);
+                inventoryMap.get(otherItem.getId()).version = otherItem.version;
+                if (otherItem.restockThreshold >= 0) {
+                    setItemRestockThreshold(otherItem.getId(), otherItem.restockThreshold);
+                }
+                listener.itemMerged(otherItem, true);
             }
         }
     }
 
-    // Helper to add item to category map
+    // Merge another inventory into this one on the common ForkJoinPool, keeping the higher quantity
+    public MergeSummary mergeInventoryParallel(Main other) {
+        return mergeInventoryParallel(other, MergePolicy.MAX, ForkJoinPool.commonPool());
+    }
+
+    // Merge another inventory into this one on the common ForkJoinPool; see the overload below
+    public MergeSummary mergeInventoryParallel(Main other, MergePolicy policy) {
+        return mergeInventoryParallel(other, policy, ForkJoinPool.commonPool());
+    }
+
+    // Merge another inventory into this one in parallel, keeping the higher quantity for shared IDs
+    public MergeSummary mergeInventoryParallel(Main other, ForkJoinPool pool) {
+        return mergeInventoryParallel(other, MergePolicy.MAX, pool);
+    }
+
+    // Merge another inventory into this one in parallel, resolving shared IDs with the given policy.
+    // The incoming items are partitioned by ID hash and looked up on the pool while this inventory
+    // is only read; built-in policies then resolve each partition over primitive arrays in bulk.
+    // The changes are applied in one pass, with each touched category heap rebuilt once on the
+    // pool and the quantity index rebuilt outright when most items changed. Thresholds are
+    // carried as in mergeInventory. Returns a summary instead of sending per-item events to the listener.
+    public MergeSummary mergeInventoryParallel(Main other, MergePolicy policy, ForkJoinPool pool) {
+        MergeSummary summary = new MergeSummary();
+        if (other == null) {
+            listener.invalidInput("Cannot merge with a null inventory.");
+            return summary;
+        }
+        if (policy == null) {
+            listener.invalidInput("Merge policy cannot be null.");
+            return summary;
+        }
+        if (other == this) {
+            summary.recordUnchanged(inventoryMap.size());
+            return summary;
+        }
+
+        // Partition the incoming items by ID hash
+        int partitions = Math.max(1, pool.getParallelism() * 4);
+        List<List<Item>> buckets = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (Item item : other.inventoryMap.values()) {
+            int h = item.getId().hashCode();
+            buckets.get(Math.floorMod(h ^ (h >>> 16), partitions)).add(item);
+        }
+
+        // Plan every partition in parallel; this inventory is only read here
+        List<Callable<MergePlan>> planners = new ArrayList<>(partitions);
+        for (List<Item> bucket : buckets) {
+            planners.add(() -> planMerge(bucket, policy));
+        }
+        List<MergePlan> plans = new ArrayList<>(partitions);
+        for (Future<MergePlan> future : pool.invokeAll(planners)) {
+            plans.add(await(future));
+        }
+
+        // Log every plan before applying any of them, so a failing log leaves the indexes untouched
+        if (writeAheadLog != null) {
+            for (MergePlan plan : plans) {
+                for (int i = 0; i < plan.targets.size(); i++) {
+                    Item source = plan.sources.get(i);
+                    if (plan.replacing.get(i)) {
+                        writeAheadLog.logPut(source.getId(), source.getName(), source.getCategory(), plan.quantities[i]);
+                    } else {
+                        writeAheadLog.logSetQuantity(source.getId(), plan.quantities[i]);
+                    }
+                }
+                for (Item item : plan.additions) {
+                    writeAheadLog.logPut(item.getId(), item.getName(), item.getCategory(), item.getQuantity());
+                    if (item.restockThreshold >= 0) {
+                        writeAheadLog.logItemThreshold(item.getId(), item.restockThreshold);
+                    }
+                }
+            }
+        }
+
+        // Apply the plans; category heaps and the quantity index are fixed up afterwards in bulk
+        Map<Integer, List<Item>> added = new HashMap<>();
+        Map<Integer, List<Item>> updated = new HashMap<>();
+        List<Item> addedItems = new ArrayList<>();
+        List<Item> updatedItems = new ArrayList<>();
+        for (MergePlan plan : plans) {
+            for (int i = 0; i < plan.targets.size(); i++) {
+                Item target = plan.targets.get(i);
+                Item source = plan.sources.get(i);
+                int quantity = plan.quantities[i];
+                if (plan.replacing.get(i)) {
+                    target.setName(source.getName());
+                    if (target.getCategoryId() != source.getCategoryId()) {
+                        removeFromCategory(target);
+                        target.setCategoryId(source.getCategoryId());
+                        target.setQuantity(quantity);
+                        countIn(target);
+                        added.computeIfAbsent(target.getCategoryId(), c -> new ArrayList<>()).add(target);
+                    } else {
+                        setQuantityInCategory(target, quantity);
+                        updated.computeIfAbsent(target.getCategoryId(), c -> new ArrayList<>()).add(target);
+                    }
+                } else {
+                    setQuantityInCategory(target, quantity);
+                    updated.computeIfAbsent(target.getCategoryId(), c -> new ArrayList<>()).add(target);
+                }
+                target.version = Math.max(target.version, source.version);
+                updatedItems.add(target);
+            }
+            for (Item item : plan.additions) {
+                inventoryMap.put(item.getId(), item);
+                countIn(item);
+                added.computeIfAbsent(item.getCategoryId(), c -> new ArrayList<>()).add(item);
+                addedItems.add(item);
+            }
+            for (String id : plan.rejected) {
+                listener.mergeRejected(id);
+            }
+            summary.recordUpdated(plan.targets.size());
+            summary.recordAdded(plan.additions.size());
+            summary.recordUnchanged(plan.unchanged + plan.rejected.size());
+        }
+
+        Set<Integer> touched = new HashSet<>(added.keySet());
+        touched.addAll(updated.keySet());
+        List<Callable<Void>> heapBuilders = new ArrayList<>(touched.size());
+        for (int categoryId : touched) {
+            ItemHeap heap = heapFor(categoryId);
+            List<Item> entering = added.getOrDefault(categoryId, Collections.emptyList());
+            List<Item> rekeyed = updated.getOrDefault(categoryId, Collections.emptyList());
+            heapBuilders.add(() -> {
+                heap.applyBatch(entering, rekeyed);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(heapBuilders)) {
+            await(future);
+        }
+
+        long changes = (long) addedItems.size() + updatedItems.size();
+        if (changes * (32 - Integer.numberOfLeadingZeros(inventoryMap.size())) > inventoryMap.size()) {
+            quantityIndex.build(inventoryMap.values().toArray(new Item[0]));
+        } else {
+            for (Item item : updatedItems) {
+                quantityIndex.update(item.quantityNode);
+            }
+            for (Item item : addedItems) {
+                quantityIndex.insert(item.quantityNode);
+            }
+        }
+
+        for (Item item : updatedItems) {
+            refreshNameIndexes(item);
+            refreshLowStock(item);
+        }
+        for (Item item : addedItems) {
+            refreshNameIndexes(item);
+            refreshLowStock(item);
+        }
+        return summary;
+    }
+
+    // Changes one partition of a parallel merge would make: merged states for existing items,
+    // copies of items new to this inventory, and IDs a custom policy gave a negative quantity
+    private static final class MergePlan {
+        final List<Item> targets = new ArrayList<>();
+        final List<Item> sources = new ArrayList<>(); // Incoming item for each target
+        int[] quantities;
+        final BitSet replacing = new BitSet(); // Targets taking the incoming name and category
+        final List<Item> additions = new ArrayList<>();
+        final List<String> rejected = new ArrayList<>();
+        int unchanged;
+    }
+
+    // Helper to plan one partition of a parallel merge; only reads this inventory.
+    // Shared items are gathered into primitive arrays first, so a built-in policy resolves the
+    // whole partition in one bulk call instead of two virtual calls per item.
+    private MergePlan planMerge(List<Item> incoming, MergePolicy policy) {
+        MergePlan plan = new MergePlan();
+        int n = incoming.size();
+        Item[] existingItems = new Item[n];
+        Item[] incomingItems = new Item[n];
+        int[] current = new int[n];
+        int[] offered = new int[n];
+        long[] currentVersions = new long[n];
+        long[] offeredVersions = new long[n];
+        int shared = 0;
+        for (Item otherItem : incoming) {
+            Item existingItem = inventoryMap.get(otherItem.getId());
+            if (existingItem == null) {
+                Item copy = new Item(otherItem.getId(), otherItem.getName(), otherItem.getCategory(), otherItem.getQuantity());
+                copy.restockThreshold = otherItem.restockThreshold;
+                copy.version = otherItem.version;
+                plan.additions.add(copy);
+            } else {
+                existingItems[shared] = existingItem;
+                incomingItems[shared] = otherItem;
+                current[shared] = existingItem.getQuantity();
+                offered[shared] = otherItem.getQuantity();
+                currentVersions[shared] = existingItem.version;
+                offeredVersions[shared] = otherItem.version;
+                shared++;
+            }
+        }
+
+        int[] merged = new int[shared];
+        boolean[] takeIncoming = new boolean[shared];
+        if (policy instanceof MergePolicy.Standard standard) {
+            standard.mergeAll(current, offered, currentVersions, offeredVersions, shared, merged, takeIncoming);
+        } else {
+            for (int i = 0; i < shared; i++) {
+                merged[i] = policy.mergeQuantity(existingItems[i], incomingItems[i]);
+                takeIncoming[i] = policy.takesIncomingDetails(existingItems[i], incomingItems[i]);
+            }
+        }
+
+        plan.quantities = new int[shared];
+        for (int i = 0; i < shared; i++) {
+            boolean replace = takeIncoming[i] && !sameDetails(existingItems[i], incomingItems[i]);
+            if (merged[i] < 0) {
+                plan.rejected.add(existingItems[i].getId());
+            } else if (replace || merged[i] != current[i]) {
+                if (replace) {
+                    plan.replacing.set(plan.targets.size());
+                }
+                plan.quantities[plan.targets.size()] = merged[i];
+                plan.targets.add(existingItems[i]);
+                plan.sources.add(incomingItems[i]);
+            } else {
+                plan.unchanged++;
+            }
+        }
+        return plan;
+    }
+
+    // Helper to wait for a pool task, rethrowing its failure unchecked
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while merging.");
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    // Helper to check item fields; returns the error message, or null if the fields are valid
+    static String validate(String id, String name, String category, int quantity) {
+        if (id == null || id.isEmpty()) {
+            return "Item ID cannot be null or empty.";
+        }
+        if (name == null || name.isEmpty()) {
+            return "Item name cannot be null or empty.";
+        }
+        if (category == null || category.isEmpty()) {
+            return "Category cannot be null or empty.";
+        }
+        if (quantity < 0) {
+            return "Quantity cannot be negative.";
+        }
+        return null;
+    }
+
+    // Helper to add item to its category heap and aggregates
     private void addToCategory(Item item) {
-        categoryMap.putIfAbsent(item.getCategory(), new PriorityQueue<>((a, b) -> b.getQuantity() - a.getQuantity()));
-        categoryMap.get(item.getCategory()).add(item);
+        heapFor(item.getCategoryId()).add(item);
+        countIn(item);
+    }
+
+    // Helper to enter an item into its category's aggregates, whether or not it is in the heap yet
+    private void countIn(Item item) {
+        int categoryId = item.getCategoryId();
+        if (categoryId >= categoryStats.length) {
+            categoryStats = Arrays.copyOf(categoryStats, Math.max(categoryId + 1, categoryStats.length * 2));
+        }
+        CategoryStats stats = categoryStats[categoryId];
+        if (stats == null) {
+            stats = new CategoryStats();
+            categoryStats[categoryId] = stats;
+            categoryTree.addCategory(categoryId);
+        }
+        stats.add(item.getQuantity(), lowStockIndex.contains(item));
+        categoryTree.add(categoryId, item.getQuantity());
+        QuantityIndex order = orderOf(categoryId);
+        if (order != null) {
+            order.insert(categoryNode(item));
+        }
+    }
+
+    // Helper to change an item's quantity within its category, keeping the category's aggregates
+    // and ordered index current; the caller re-keys the heap and the global quantity index
+    private void setQuantityInCategory(Item item, int quantity) {
+        int categoryId = item.getCategoryId();
+        categoryStats[categoryId].change(item.getQuantity(), quantity);
+        categoryTree.add(categoryId, quantity - item.getQuantity());
+        item.setQuantity(quantity);
+        QuantityIndex order = orderOf(categoryId);
+        if (order != null) {
+            order.update(item.categoryNode);
+        }
+    }
+
+    // Helper to bring an item's entries in the name indexes, once built, up to date with its name and quantity
+    private void refreshNameIndexes(Item item) {
+        if (nameIndex != null) {
+            nameIndex.update(nameNode(item));
+        }
+        if (trigramIndex != null) {
+            trigramIndex.update(item);
+        }
     }
 
-    // Helper to remove item from category map
+    // Helper to get an item's name index node, creating it on first use
+    private static NameIndex.Node nameNode(Item item) {
+        if (item.nameNode == null) {
+            item.nameNode = new NameIndex.Node(item);
+        }
+        return item.nameNode;
+    }
+
+    // Helper to look up a category's ordered index; null until an ordered query built one
+    private QuantityIndex orderOf(int categoryId) {
+        return categoryId >= 0 && categoryId < categoryOrders.length ? categoryOrders[categoryId] : null;
+    }
+
+    // Helper to get a category's ordered index, building it from the heap on first use
+    private QuantityIndex orderFor(int categoryId) {
+        QuantityIndex order = orderOf(categoryId);
+        if (order == null) {
+            if (categoryId >= categoryOrders.length) {
+                categoryOrders = Arrays.copyOf(categoryOrders, Math.max(categoryId + 1, categoryOrders.length * 2));
+            }
+            order = new QuantityIndex(Main::categoryNode);
+            ItemHeap items = heapOf(categoryId);
+            if (items != null) {
+                order.build(items.toList().toArray(new Item[0]));
+            }
+            categoryOrders[categoryId] = order;
+        }
+        return order;
+    }
+
+    // Helper to validate a category and get its ordered index; null if it is invalid or has no items
+    private QuantityIndex orderForQuery(String category) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return null;
+        }
+        int categoryId = CategoryRegistry.find(category);
+        return heapOf(categoryId) == null ? null : orderFor(categoryId);
+    }
+
+    // Helper to pick the nearest-rank percentile from an ordered index
+    private static int percentileOf(QuantityIndex order, double percentile) {
+        int size = order.size();
+        if (size == 0) {
+            return -1;
+        }
+        int rank = Math.max(1, (int) Math.ceil(percentile / 100 * size));
+        return order.select(Math.min(rank, size) - 1).getQuantity();
+    }
+
+    // Helper to get an item's node for category ordered indexes, creating it on first use
+    private static QuantityIndex.Node categoryNode(Item item) {
+        if (item.categoryNode == null) {
+            item.categoryNode = new QuantityIndex.Node(item);
+        }
+        return item.categoryNode;
+    }
+
+    // Helper to look up a category heap by ID; null if the category has no items here
+    private ItemHeap heapOf(int categoryId) {
+        return categoryId >= 0 && categoryId < categoryHeaps.length ? categoryHeaps[categoryId] : null;
+    }
+
+    // Helper to get a category heap by ID, creating it on first use
+    private ItemHeap heapFor(int categoryId) {
+        if (categoryId >= categoryHeaps.length) {
+            categoryHeaps = Arrays.copyOf(categoryHeaps, Math.max(categoryId + 1, categoryHeaps.length * 2));
+        }
+        ItemHeap heap = categoryHeaps[categoryId];
+        if (heap == null) {
+            heap = new ItemHeap();
+            categoryHeaps[categoryId] = heap;
+        }
+        return heap;
+    }
+
+    // Helper to change an item's quantity and re-position it in all indexes
+    private void changeQuantity(Item item, int quantity) {
+        setQuantityInCategory(item, quantity);
+        categoryHeaps[item.getCategoryId()].update(item);
+        quantityIndex.update(item.quantityNode);
+        refreshNameIndexes(item);
+        refreshLowStock(item);
+    }
+
+    // Helper to move an item to another category with a new quantity and re-index it
+    private void changeCategory(Item item, int categoryId, int quantity) {
+        removeFromCategory(item); // Remove from old category before moving
+        item.setCategoryId(categoryId);
+        item.setQuantity(quantity);
+        addToCategory(item);
+        quantityIndex.update(item.quantityNode);
+        refreshNameIndexes(item);
+        refreshLowStock(item); // The new category may have another threshold
+    }
+
+    // Helper to write one merged item state; the result carries the newer of the two versions
+    private void applyMerged(Item existing, Item incoming, int quantity, boolean replace) {
+        if (replace) {
+            if (writeAheadLog != null) {
+                writeAheadLog.logPut(existing.getId(), incoming.getName(), incoming.getCategory(), quantity);
+            }
+            existing.setName(incoming.getName());
+            if (existing.getCategoryId() == incoming.getCategoryId()) {
+                changeQuantity(existing, quantity);
+            } else {
+                changeCategory(existing, incoming.getCategoryId(), quantity);
+            }
+        } else {
+            if (writeAheadLog != null) {
+                writeAheadLog.logSetQuantity(existing.getId(), quantity);
+            }
+            changeQuantity(existing, quantity);
+        }
+        existing.version = Math.max(existing.version, incoming.version);
+    }
+
+    private static boolean sameDetails(Item a, Item b) {
+        return a.getCategoryId() == b.getCategoryId() && a.getName().equals(b.getName());
+    }
+
+    // Helper to add or drop an item from the low-stock index; only a threshold crossing changes it
+    private void refreshLowStock(Item item) {
+        boolean low = item.getQuantity() < restockThreshold(item);
+        if (low ? lowStockIndex.add(item) : lowStockIndex.remove(item)) {
+            categoryStats[item.getCategoryId()].lowStockChanged(low);
+        }
+    }
+
+    // Helper to re-check every item of a category after its threshold changed
+    private void refreshCategoryLowStock(int categoryId) {
+        ItemHeap items = heapOf(categoryId);
+        if (items != null) {
+            for (Item item : items.toList()) {
+                refreshLowStock(item);
+            }
+        }
+    }
+
+    // Item threshold, else category threshold, else the default
+    private int restockThreshold(Item item) {
+        if (item.restockThreshold >= 0) {
+            return item.restockThreshold;
+        }
+        int threshold = categoryThreshold(item.getCategoryId());
+        return threshold >= 0 ? threshold : DEFAULT_RESTOCK_THRESHOLD;
+    }
+
+    // Helper to store a category threshold, growing the array as needed
+    private void putCategoryThreshold(int categoryId, int threshold) {
+        if (categoryId >= categoryThresholds.length) {
+            int length = categoryThresholds.length;
+            categoryThresholds = Arrays.copyOf(categoryThresholds, Math.max(categoryId + 1, length * 2));
+            Arrays.fill(categoryThresholds, length, categoryThresholds.length, -1);
+        }
+        categoryThresholds[categoryId] = threshold;
+    }
+
+    // Threshold set for a category ID, or -1 if none is set
+    private int categoryThreshold(int categoryId) {
+        return categoryId >= 0 && categoryId < categoryThresholds.length ? categoryThresholds[categoryId] : -1;
+    }
+
+    // Helper to remove item from its category heap and aggregates
     private void removeFromCategory(Item item) {
-        PriorityQueue<Item> items = categoryMap.get(item.getCategory());
+        categoryStats[item.getCategoryId()].remove(item.getQuantity(), lowStockIndex.contains(item));
+        categoryTree.add(item.getCategoryId(), -item.getQuantity());
+        QuantityIndex order = orderOf(item.getCategoryId());
+        if (order != null) {
+            order.remove(item.categoryNode);
+        }
+        ItemHeap items = heapOf(item.getCategoryId());
         if (items != null) {
             items.remove(item);
             if (items.isEmpty()) {
-                categoryMap.remove(item.getCategory());
+                categoryHeaps[item.getCategoryId()] = null;
             }
         }
     }
 
+    // Set an item's quantity without validation or events, for log replay; unknown IDs are ignored
+    void restoreQuantity(String id, int quantity) {
+        Item item = inventoryMap.get(id);
+        if (item != null) {
+            item.touch();
+            changeQuantity(item, quantity);
+        }
+    }
+
+    // Live view of every item, for persistence
+    Collection<Item> items() {
+        return Collections.unmodifiableCollection(inventoryMap.values());
+    }
+
+    // Copy of the per-category restock thresholds by category name, for persistence
+    Map<String, Integer> categoryRestockThresholds() {
+        Map<String, Integer> thresholds = new HashMap<>();
+        for (int categoryId = 0; categoryId < categoryThresholds.length; categoryId++) {
+            if (categoryThresholds[categoryId] >= 0) {
+                thresholds.put(CategoryRegistry.name(categoryId), categoryThresholds[categoryId]);
+            }
+        }
+        return thresholds;
+    }
+
+    // Build an inventory from decoded items with unique IDs, creating each index in one bulk pass.
+    // Category heaps are heapified in parallel and the quantity index is built from a parallel sort.
+    static Main restore(Item[] items, Map<String, Integer> categoryThresholds) {
+        Main inventory = new Main(items.length);
+        for (Map.Entry<String, Integer> entry : categoryThresholds.entrySet()) {
+            inventory.putCategoryThreshold(CategoryRegistry.intern(entry.getKey()), entry.getValue());
+        }
+
+        Map<Integer, List<Item>> byCategory = new HashMap<>();
+        for (Item item : items) {
+            inventory.inventoryMap.put(item.getId(), item);
+            inventory.countIn(item);
+            byCategory.computeIfAbsent(item.getCategoryId(), c -> new ArrayList<>()).add(item);
+        }
+
+        // Each task fills its own slot, so the array needs no synchronization
+        ItemHeap[] heaps = new ItemHeap[CategoryRegistry.size()];
+        byCategory.entrySet().parallelStream().forEach(entry -> {
+            ItemHeap heap = new ItemHeap();
+            heap.applyBatch(entry.getValue(), Collections.emptyList());
+            heaps[entry.getKey()] = heap;
+        });
+        inventory.categoryHeaps = heaps;
+
+        inventory.quantityIndex.build(items);
+
+        for (Item item : items) {
+            inventory.refreshLowStock(item);
+        }
+        return inventory;
+    }
+
     // Item class
     static class Item {
+        private static final AtomicIntegerFieldUpdater<Item> QUANTITY =
+                AtomicIntegerFieldUpdater.newUpdater(Item.class, "quantity");
+        private static final AtomicIntegerFieldUpdater<Item> REINDEX_PENDING =
+                AtomicIntegerFieldUpdater.newUpdater(Item.class, "reindexPending");
+        private static final AtomicLong CLOCK = new AtomicLong(); // Last version handed out
+
         private String id;
         private String name;
-        private String category;
-        private int quantity;
+        private int categoryId; // CategoryRegistry ID of the category name
+        private volatile int quantity; // Volatile so ConcurrentInventory can change it with CAS
+        private volatile int reindexPending; // 1 while a lock-free quantity change awaits re-indexing
+        int heapIndex = -1; // Slot in the category ItemHeap, -1 when not indexed
+        int heapKey; // Quantity the item is ordered by in its ItemHeap
+        int lowStockSlot = -1; // Slot in the LowStockIndex, -1 when stocked
+        int restockThreshold = -1; // Item-specific restock threshold, -1 to use the category's
+        final QuantityIndex.Node quantityNode = new QuantityIndex.Node(this); // Node in the global quantity index
+        QuantityIndex.Node categoryNode; // Node in its category's ordered index, null until one is built
+        NameIndex.Node nameNode; // Node in the name index, null until it is built
+        int trigramSlot = -1; // Slot in the TrigramIndex, -1 when not indexed
+        long version = nextVersion(); // When the item was last written, for last-writer-wins merges
 
         public Item(String id, String name, String category, int quantity) {
+            this(id, name, CategoryRegistry.intern(category), quantity);
+        }
+
+        Item(String id, String name, int categoryId, int quantity) {
             this.id = id;
             this.name = name;
-            this.category = category;
+            this.categoryId = categoryId;
             this.quantity = quantity;
         }
 
         public String getId() { return id; }
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
-        public String getCategory() { return category; }
-        public void setCategory(String category) { this.category = category; }
+        public String getCategory() { return CategoryRegistry.name(categoryId); }
+        public void setCategory(String category) { this.categoryId = CategoryRegistry.intern(category); }
+        int getCategoryId() { return categoryId; }
+        void setCategoryId(int categoryId) { this.categoryId = categoryId; }
         public int getQuantity() { return quantity; }
         public void setQuantity(int quantity) { this.quantity = quantity; }
+        public long getVersion() { return version; }
+
+        // Record a write to the item
+        void touch() {
+            version = nextVersion();
+        }
+
+        // Wall-clock microseconds, bumped so versions never repeat or go backwards within the JVM
+        static long nextVersion() {
+            long now = System.currentTimeMillis() * 1000;
+            while (true) {
+                long last = CLOCK.get();
+                long next = Math.max(last + 1, now);
+                if (CLOCK.compareAndSet(last, next)) {
+                    return next;
+                }
+            }
+        }
+
+        boolean compareAndSetQuantity(int expected, int quantity) {
+            return QUANTITY.compareAndSet(this, expected, quantity);
+        }
+
+        // Returns true only for the caller that raised the flag
+        boolean markReindexPending() {
+            return REINDEX_PENDING.compareAndSet(this, 0, 1);
+        }
+
+        void clearReindexPending() {
+            reindexPending = 0;
+        }
 
         @Override
         public String toString() {
             return "Item{" +
                     "id='" + id + '\'' +
                     ", name='" + name + '\'' +
-                    ", category='" + category + '\'' +
+                    ", category='" + getCategory() + '\'' +
                     ", quantity=" + quantity +
                     '}';
         }
@@ -196,6 +1314,7 @@ public class Main
 
     public static void main(String[] args) {
         Main inventory = new Main();
+        inventory.setListener(new ConsoleInventoryListener());
 
         // Add items
         System.out.println("Add Items:");
@@ -221,6 +1340,7 @@ public class Main
         // Merge inventories
         System.out.println("\nMerging inventories: ");
         Main otherInventory = new Main();
+        otherInventory.setListener(new ConsoleInventoryListener());
         otherInventory.addOrUpdateItem("4", "Table", "Furniture", 30);
         otherInventory.addOrUpdateItem("1", "Laptop", "Electronics", 60); // Higher quantity
         inventory.mergeInventory(otherInventory);
@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+// Decides what an item present in both inventories becomes when they are merged.
+// Any lambda over (existing, incoming) returning the merged quantity is a custom policy;
+// it keeps the existing name and category unless it also overrides takesIncomingDetails.
+// A parallel merge may call a custom policy from several threads at once.
+@FunctionalInterface
+interface MergePolicy
+{
+    MergePolicy MAX = Standard.MAX;
+    MergePolicy SUM = Standard.SUM;
+    MergePolicy LAST_WRITER_WINS = Standard.LAST_WRITER_WINS;
+    MergePolicy SOURCE_WINS = Standard.SOURCE_WINS;
+
+    // Quantity the existing item should end up with
+    int mergeQuantity(Main.Item existing, Main.Item incoming);
+
+    // Whether the existing item should also take the incoming name and category
+    default boolean takesIncomingDetails(Main.Item existing, Main.Item incoming) {
+        return false;
+    }
+
+    // Built-in policies. Besides the per-item methods, each can resolve a whole partition of a
+    // parallel merge over primitive arrays in one call, as a plain loop the JIT can vectorize.
+    enum Standard implements MergePolicy {
+        // Keep the higher quantity
+        MAX {
+            @Override
+            public int mergeQuantity(Main.Item existing, Main.Item incoming) {
+                return Math.max(existing.getQuantity(), incoming.getQuantity());
+            }
+
+            @Override
+            void mergeAll(int[] current, int[] incoming, long[] currentVersions, long[] incomingVersions,
+                          int count, int[] merged, boolean[] takeIncoming) {
+                for (int i = 0; i < count; i++) {
+                    merged[i] = Math.max(current[i], incoming[i]);
+                }
+            }
+        },
+
+        // Add the quantities, saturating at Integer.MAX_VALUE
+        SUM {
+            @Override
+            public int mergeQuantity(Main.Item existing, Main.Item incoming) {
+                return (int) Math.min((long) existing.getQuantity() + incoming.getQuantity(), Integer.MAX_VALUE);
+            }
+
+            @Override
+            void mergeAll(int[] current, int[] incoming, long[] currentVersions, long[] incomingVersions,
+                          int count, int[] merged, boolean[] takeIncoming) {
+                for (int i = 0; i < count; i++) {
+                    merged[i] = (int) Math.min((long) current[i] + incoming[i], Integer.MAX_VALUE);
+                }
+            }
+        },
+
+        // Take the whole incoming item if it was written more recently; ties keep the existing one
+        LAST_WRITER_WINS {
+            @Override
+            public int mergeQuantity(Main.Item existing, Main.Item incoming) {
+                return takesIncomingDetails(existing, incoming) ? incoming.getQuantity() : existing.getQuantity();
+            }
+
+            @Override
+            public boolean takesIncomingDetails(Main.Item existing, Main.Item incoming) {
+                return incoming.getVersion() > existing.getVersion();
+            }
+
+            @Override
+            void mergeAll(int[] current, int[] incoming, long[] currentVersions, long[] incomingVersions,
+                          int count, int[] merged, boolean[] takeIncoming) {
+                for (int i = 0; i < count; i++) {
+                    boolean newer = incomingVersions[i] > currentVersions[i];
+                    merged[i] = newer ? incoming[i] : current[i];
+                    takeIncoming[i] = newer;
+                }
+            }
+        },
+
+        // Always take the whole incoming item
+        SOURCE_WINS {
+            @Override
+            public int mergeQuantity(Main.Item existing, Main.Item incoming) {
+                return incoming.getQuantity();
+            }
+
+            @Override
+            public boolean takesIncomingDetails(Main.Item existing, Main.Item incoming) {
+                return true;
+            }
+
+            @Override
+            void mergeAll(int[] current, int[] incoming, long[] currentVersions, long[] incomingVersions,
+                          int count, int[] merged, boolean[] takeIncoming) {
+                System.arraycopy(incoming, 0, merged, 0, count);
+                Arrays.fill(takeIncoming, 0, count, true);
+            }
+        };
+
+        // Resolve count pairs at once: fills merged with the new quantities and sets takeIncoming
+        // where the incoming name and category should replace the existing ones
+        abstract void mergeAll(int[] current, int[] incoming, long[] currentVersions, long[] incomingVersions,
+                               int count, int[] merged, boolean[] takeIncoming);
+    }
+}
@@ -0,0 +1,33 @@
+// Outcome of a merge: what happened to each incoming item
+class MergeSummary
+{
+    private int added;
+    private int updated;
+    private int unchanged;
+
+    void recordAdded(int count) {
+        added += count;
+    }
+
+    void recordUpdated(int count) {
+        updated += count;
+    }
+
+    void recordUnchanged(int count) {
+        unchanged += count;
+    }
+
+    // Incoming items whose ID was new to this inventory
+    public int getAdded() { return added; }
+
+    // Existing items whose quantity, name or category the merge changed
+    public int getUpdated() { return updated; }
+
+    // Existing items the merge left as they were
+    public int getUnchanged() { return unchanged; }
+
+    @Override
+    public String toString() {
+        return "MergeSummary{added=" + added + ", updated=" + updated + ", unchanged=" + unchanged + '}';
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.*;
+import java.util.function.Function;
+
+// Items ordered by normalized name (then ID), for prefix search ranked by quantity.
+// A weight-balanced tree like QuantityIndex, where every node also caches the highest quantity
+// in its subtree. The names starting with a prefix form one contiguous run of the tree, so a
+// best-first walk that always expands the entry with the highest bound finds the n best matches
+// after O(n log n + log size) steps, without visiting the rest of the run.
+// Nodes keep a parent link, so a quantity change only refreshes the cached maxima above its node
+// and stops at the first ancestor whose maximum is unaffected; re-keying allocates nothing.
+class NameIndex
+{
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+
+    // Tree node for one item; name and quantity are the snapshots the node was linked with
+    static final class Node {
+        final Main.Item item;
+        String name; // Item name the key was computed from
+        String key; // Normalized name
+        int quantity;
+        int max; // Highest quantity in this subtree
+        Node left;
+        Node right;
+        Node parent;
+        int size; // 0 while the node is not linked
+
+        Node(Main.Item item) {
+            this.item = item;
+        }
+    }
+
+    // Entry of the best-first search: a whole subtree, or the single item of a node
+    private static final class Candidate {
+        final Node node;
+        final boolean single;
+        final int bound;
+
+        Candidate(Node node, boolean single, int bound) {
+            this.node = node;
+            this.single = single;
+            this.bound = bound;
+        }
+    }
+
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    // Names are matched case-insensitively, ignoring surrounding whitespace
+    static String normalize(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    // Replace the contents with the given items in one balanced build
+    public void build(Collection<Main.Item> items, Function<Main.Item, Node> nodeOf) {
+        Node[] nodes = new Node[items.size()];
+        int n = 0;
+        for (Main.Item item : items) {
+            Node node = nodeOf.apply(item);
+            snapshot(node);
+            nodes[n++] = node;
+        }
+        Arrays.parallelSort(nodes, NameIndex::compare);
+        root = build(nodes, 0, n - 1);
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    // Link an unlinked node, or re-key a linked one after its item's name or quantity changed
+    public void update(Node node) {
+        if (node.size == 0) {
+            snapshot(node);
+            root = insert(root, node);
+            root.parent = null;
+        } else if (!node.name.equals(node.item.getName())) {
+            remove(node);
+            update(node);
+        } else if (node.quantity != node.item.getQuantity()) {
+            node.quantity = node.item.getQuantity();
+            for (Node current = node; current != null; current = current.parent) {
+                int max = maxOf(current);
+                if (max == current.max) {
+                    break;
+                }
+                current.max = max;
+            }
+        }
+    }
+
+    // Unlink a node that was previously linked
+    public void remove(Node node) {
+        root = remove(root, node);
+        if (root != null) {
+            root.parent = null;
+        }
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+        node.size = 0;
+    }
+
+    // Up to limit items whose normalized name starts with the prefix, highest quantity first.
+    // Only leading whitespace is dropped from the prefix, since a trailing space ends a word.
+    public List<Main.Item> highestWithPrefix(String prefix, int limit) {
+        String key = prefix.stripLeading().toLowerCase(Locale.ROOT);
+        List<Main.Item> result = new ArrayList<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> Integer.compare(b.bound, a.bound));
+        if (root != null) {
+            queue.add(new Candidate(root, false, root.max));
+        }
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node;
+            if (candidate.single) {
+                result.add(node.item);
+                continue;
+            }
+            boolean matches = node.key.startsWith(key);
+            if (matches) {
+                queue.add(new Candidate(node, true, node.quantity));
+            }
+            // Matching names are contiguous: left of a node above the run, right of one below it
+            if (node.left != null && (matches || node.key.compareTo(key) > 0)) {
+                queue.add(new Candidate(node.left, false, node.left.max));
+            }
+            if (node.right != null && (matches || node.key.compareTo(key) < 0)) {
+                queue.add(new Candidate(node.right, false, node.right.max));
+            }
+        }
+        return result;
+    }
+
+    private static void snapshot(Node node) {
+        node.name = node.item.getName();
+        node.key = normalize(node.name);
+        node.quantity = node.item.getQuantity();
+    }
+
+    private static Node build(Node[] sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = sorted[middle];
+        node.left = build(sorted, from, middle - 1);
+        node.right = build(sorted, middle + 1, to);
+        resize(node);
+        return node;
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            node.left = null;
+            node.right = null;
+            resize(node);
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return balance(tree);
+    }
+
+    private static Node remove(Node tree, Node node) {
+        if (tree == null) {
+            return null;
+        }
+        if (tree == node) {
+            return glue(tree.left, tree.right);
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        return balance(tree);
+    }
+
+    // Join two subtrees whose keys are already ordered, pulling the root from the larger side
+    private static Node glue(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size > right.size) {
+            Node max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            max.left = removeMax(left);
+            max.right = right;
+            return balance(max);
+        }
+        Node min = right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        min.right = removeMin(right);
+        min.left = left;
+        return balance(min);
+    }
+
+    private static Node removeMin(Node tree) {
+        if (tree.left == null) {
+            return tree.right;
+        }
+        tree.left = removeMin(tree.left);
+        return balance(tree);
+    }
+
+    private static Node removeMax(Node tree) {
+        if (tree.right == null) {
+            return tree.left;
+        }
+        tree.right = removeMax(tree.right);
+        return balance(tree);
+    }
+
+    private static Node balance(Node tree) {
+        int leftWeight = size(tree.left) + 1;
+        int rightWeight = size(tree.right) + 1;
+        if (rightWeight > DELTA * leftWeight) {
+            Node right = tree.right;
+            if (size(right.left) + 1 < RATIO * (size(right.right) + 1)) {
+                return rotateLeft(tree);
+            }
+            tree.right = rotateRight(right);
+            return rotateLeft(tree);
+        }
+        if (leftWeight > DELTA * rightWeight) {
+            Node left = tree.left;
+            if (size(left.right) + 1 < RATIO * (size(left.left) + 1)) {
+                return rotateRight(tree);
+            }
+            tree.left = rotateLeft(left);
+            return rotateRight(tree);
+        }
+        resize(tree);
+        return tree;
+    }
+
+    private static Node rotateLeft(Node tree) {
+        Node right = tree.right;
+        tree.right = right.left;
+        resize(tree);
+        right.left = tree;
+        resize(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node tree) {
+        Node left = tree.left;
+        tree.left = left.right;
+        resize(tree);
+        left.right = tree;
+        resize(left);
+        return left;
+    }
+
+    // Recompute a node's size and maximum from its children and adopt them
+    private static void resize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        node.max = maxOf(node);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static int maxOf(Node node) {
+        int max = node.quantity;
+        if (node.left != null) {
+            max = Math.max(max, node.left.max);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.max);
+        }
+        return max;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // By normalized name, ties broken by ID so every key is unique
+    private static int compare(Node a, Node b) {
+        int byName = a.key.compareTo(b.key);
+        return byName != 0 ? byName : a.item.getId().compareTo(b.item.getId());
+    }
+}
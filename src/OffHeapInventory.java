@@ -0,0 +1,468 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Inventory whose items live outside the Java heap, for inventories so large that one Item object
+// per SKU keeps the old generation big and its collections slow.
+//
+// Items are fixed 32-byte records in direct memory chunks, IDs and names are appended to a chunked
+// string arena, and the ID index is an open-addressing table of record numbers, also off-heap.
+// Each category's records form a doubly linked list threaded through the records, so the heap
+// holds only the list heads and one buffer object per 2-4 MB chunk, not objects per item.
+// Queries copy the matching records into Main.Item objects.
+//
+// Record layout (native order): int quantity, int category ID, int ID hash, int next, int prev,
+// int live flag, long string offset of (varint ID length, ID, varint name length, name).
+// Removed records go on a free list linked through next. The strings of removed and renamed items
+// stay in the arena as dead bytes until they outweigh the live ones, then the arena is rewritten.
+//
+// The build targets Java 17, where the Foreign Function & Memory API is only an incubator module,
+// so direct ByteBuffers stand in for MemorySegments from a shared Arena; the layout carries over
+// unchanged. Direct memory is
+// limited by -XX:MaxDirectMemorySize and is released once the inventory is closed and collected.
+// Not thread-safe.
+class OffHeapInventory implements AutoCloseable
+{
+    private static final int RECORD_BYTES = 32;
+    private static final int QUANTITY = 0;
+    private static final int CATEGORY = 4;
+    private static final int HASH = 8;
+    private static final int NEXT = 12;
+    private static final int PREV = 16;
+    private static final int LIVE = 20;
+    private static final int STRINGS = 24;
+
+    private static final int RECORD_CHUNK_SHIFT = 16; // 64K records, 2 MB per chunk
+    private static final int RECORDS_PER_CHUNK = 1 << RECORD_CHUNK_SHIFT;
+    private static final int STRING_CHUNK_SHIFT = 22; // 4 MB per chunk
+    private static final int STRING_CHUNK_BYTES = 1 << STRING_CHUNK_SHIFT;
+    private static final int MAX_TABLE_SLOTS = 1 << 28; // 1 GB of int slots, for up to 128M items
+    private static final int NONE = -1;
+
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private int recordCount; // Records ever allocated; live ones plus the free list
+    private int freeRecord = NONE; // Head of the free list
+    private int size;
+
+    private final List<ByteBuffer> strings = new ArrayList<>();
+    private int stringPosition = STRING_CHUNK_BYTES; // Write position in the last chunk; full when empty
+    private long liveStringBytes;
+    private long deadStringBytes;
+
+    private ByteBuffer table; // Record number + 1 per slot, 0 where free
+    private int tableSlots;
+
+    private int[] categoryHeads = new int[0]; // First record of each category ID, NONE if empty
+    private int[] categorySizes = new int[0];
+
+    private InventoryListener listener = InventoryListener.NONE;
+
+    public OffHeapInventory() {
+        allocateTable(1 << 10);
+    }
+
+    // Install an event sink; pass null to go back to the silent default.
+    // Events carry copies of the records, made only while a listener is installed.
+    public void setListener(InventoryListener listener) {
+        this.listener = listener != null ? listener : InventoryListener.NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Records allocated so far, live or on the free list
+    int allocatedRecords() {
+        return recordCount;
+    }
+
+    // Direct chunks held by the string arena
+    int stringChunks() {
+        return strings.size();
+    }
+
+    // Add or update an item in the inventory
+    public void addOrUpdateItem(String id, String name, String category, int quantity) {
+        String error = Main.validate(id, name, category, quantity);
+        if (error != null) {
+            listener.invalidInput(error);
+            return;
+        }
+
+        int hash = id.hashCode();
+        int categoryId = CategoryRegistry.intern(category);
+        int record = find(id, hash);
+        if (record != NONE) {
+            if (!stringEquals(skipString(getLong(record, STRINGS)), name)) {
+                releaseStrings(record);
+                putLong(record, STRINGS, appendStrings(id, name));
+            }
+            if (getInt(record, CATEGORY) != categoryId) {
+                unlink(record);
+                link(record, categoryId);
+            }
+            putInt(record, QUANTITY, quantity);
+            if (listener != InventoryListener.NONE) {
+                Main.Item item = copy(record);
+                listener.itemUpdated(item);
+                if (quantity < Main.DEFAULT_RESTOCK_THRESHOLD) {
+                    listener.lowStock(item);
+                }
+            }
+        } else {
+            record = allocateRecord();
+            putInt(record, QUANTITY, quantity);
+            putInt(record, HASH, hash);
+            putInt(record, LIVE, 1);
+            putLong(record, STRINGS, appendStrings(id, name));
+            link(record, categoryId);
+            insertSlot(record, hash);
+            size++;
+            if (listener != InventoryListener.NONE) {
+                Main.Item item = copy(record);
+                listener.itemAdded(item);
+                if (quantity < Main.DEFAULT_RESTOCK_THRESHOLD) {
+                    listener.lowStock(item);
+                }
+            }
+        }
+        compactIfSparse();
+    }
+
+    // Remove an item by ID
+    public void removeItem(String id) {
+        if (id == null || id.isEmpty()) {
+            listener.invalidInput("Item ID cannot be null or empty.");
+            return;
+        }
+
+        int record = find(id, id.hashCode());
+        if (record == NONE) {
+            listener.itemNotFound(id);
+            return;
+        }
+        Main.Item removed = listener != InventoryListener.NONE ? copy(record) : null;
+        deleteSlot(record);
+        unlink(record);
+        releaseStrings(record);
+        putInt(record, LIVE, 0);
+        putInt(record, NEXT, freeRecord);
+        freeRecord = record;
+        size--;
+        if (removed != null) {
+            listener.itemRemoved(removed);
+        }
+        compactIfSparse();
+    }
+
+    // Get copies of all items in a category, in no particular order
+    public List<Main.Item> getItemsByCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            listener.invalidInput("Category cannot be null or empty.");
+            return Collections.emptyList();
+        }
+
+        int categoryId = CategoryRegistry.find(category);
+        if (categoryId < 0 || categoryId >= categoryHeads.length || categoryHeads[categoryId] == NONE) {
+            listener.categoryQueried(category, 0);
+            return Collections.emptyList();
+        }
+
+        List<Main.Item> items = new ArrayList<>(categorySizes[categoryId]);
+        for (int record = categoryHeads[categoryId]; record != NONE; record = getInt(record, NEXT)) {
+            items.add(copy(record));
+        }
+        listener.categoryQueried(category, items.size());
+        return items;
+    }
+
+    // Drop every buffer; the direct memory is freed when the collector reclaims them.
+    // The inventory cannot be used afterwards.
+    @Override
+    public void close() {
+        records.clear();
+        strings.clear();
+        table = null;
+        recordCount = 0;
+        freeRecord = NONE;
+        size = 0;
+        categoryHeads = new int[0];
+        categorySizes = new int[0];
+    }
+
+    private Main.Item copy(int record) {
+        long offset = getLong(record, STRINGS);
+        return new Main.Item(readString(offset), readString(skipString(offset)),
+                getInt(record, CATEGORY), getInt(record, QUANTITY));
+    }
+
+    private int allocateRecord() {
+        if (freeRecord != NONE) {
+            int record = freeRecord;
+            freeRecord = getInt(record, NEXT);
+            return record;
+        }
+        if (recordCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap inventory is full.");
+        }
+        if (recordCount >>> RECORD_CHUNK_SHIFT == records.size()) {
+            records.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_BYTES).order(ByteOrder.nativeOrder()));
+        }
+        return recordCount++;
+    }
+
+    // Push a record onto the front of its category's list
+    private void link(int record, int categoryId) {
+        if (categoryId >= categoryHeads.length) {
+            int length = categoryHeads.length;
+            categoryHeads = Arrays.copyOf(categoryHeads, Math.max(categoryId + 1, length * 2));
+            categorySizes = Arrays.copyOf(categorySizes, categoryHeads.length);
+            Arrays.fill(categoryHeads, length, categoryHeads.length, NONE);
+        }
+        int head = categoryHeads[categoryId];
+        putInt(record, CATEGORY, categoryId);
+        putInt(record, NEXT, head);
+        putInt(record, PREV, NONE);
+        if (head != NONE) {
+            putInt(head, PREV, record);
+        }
+        categoryHeads[categoryId] = record;
+        categorySizes[categoryId]++;
+    }
+
+    private void unlink(int record) {
+        int categoryId = getInt(record, CATEGORY);
+        int next = getInt(record, NEXT);
+        int prev = getInt(record, PREV);
+        if (prev != NONE) {
+            putInt(prev, NEXT, next);
+        } else {
+            categoryHeads[categoryId] = next;
+        }
+        if (next != NONE) {
+            putInt(next, PREV, prev);
+        }
+        categorySizes[categoryId]--;
+    }
+
+    private int find(String id, int hash) {
+        int mask = tableSlots - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int record = table.getInt(slot << 2) - 1;
+            if (record == NONE) {
+                return NONE;
+            }
+            if (getInt(record, HASH) == hash && stringEquals(getLong(record, STRINGS), id)) {
+                return record;
+            }
+        }
+    }
+
+    private void insertSlot(int record, int hash) {
+        if (((long) size + 1) * 2 > tableSlots) {
+            if (tableSlots == MAX_TABLE_SLOTS) {
+                throw new IllegalStateException("Off-heap ID index is full.");
+            }
+            allocateTable(tableSlots << 1);
+            return; // The rebuild already placed every live record, including this one
+        }
+        int mask = tableSlots - 1;
+        int slot = spread(hash) & mask;
+        while (table.getInt(slot << 2) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.putInt(slot << 2, record + 1);
+    }
+
+    // Empty the slot holding record, shifting later entries of its probe run back into the gap
+    private void deleteSlot(int record) {
+        int mask = tableSlots - 1;
+        int gap = spread(getInt(record, HASH)) & mask;
+        while (table.getInt(gap << 2) - 1 != record) {
+            gap = (gap + 1) & mask;
+        }
+        for (int slot = (gap + 1) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table.getInt(slot << 2);
+            if (entry == 0) {
+                break;
+            }
+            int home = spread(getInt(entry - 1, HASH)) & mask;
+            // Move the entry back unless its home lies cyclically in (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table.putInt(gap << 2, entry);
+                gap = slot;
+            }
+        }
+        table.putInt(gap << 2, 0);
+    }
+
+    // Replace the ID table with an empty one of the given size and re-insert every live record
+    private void allocateTable(int slots) {
+        table = ByteBuffer.allocateDirect(slots << 2).order(ByteOrder.nativeOrder());
+        tableSlots = slots;
+        int mask = slots - 1;
+        for (int record = 0; record < recordCount; record++) {
+            if (getInt(record, LIVE) != 0) {
+                int slot = spread(getInt(record, HASH)) & mask;
+                while (table.getInt(slot << 2) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table.putInt(slot << 2, record + 1);
+            }
+        }
+    }
+
+    // Append an item's ID and name to the arena; returns their offset
+    private long appendStrings(String id, String name) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int bytes = prefixBytes(idBytes.length) + idBytes.length + prefixBytes(nameBytes.length) + nameBytes.length;
+        if (bytes > STRING_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Item ID and name are too long.");
+        }
+        if (STRING_CHUNK_BYTES - stringPosition < bytes) {
+            if (!strings.isEmpty()) {
+                deadStringBytes += STRING_CHUNK_BYTES - stringPosition; // The unused tail of the chunk
+            }
+            strings.add(ByteBuffer.allocateDirect(STRING_CHUNK_BYTES));
+            stringPosition = 0;
+        }
+        ByteBuffer chunk = strings.get(strings.size() - 1);
+        long offset = ((long) (strings.size() - 1) << STRING_CHUNK_SHIFT) + stringPosition;
+        stringPosition = putString(chunk, putString(chunk, stringPosition, idBytes), nameBytes);
+        liveStringBytes += bytes;
+        return offset;
+    }
+
+    private void releaseStrings(int record) {
+        long offset = getLong(record, STRINGS);
+        long bytes = skipString(skipString(offset)) - offset;
+        liveStringBytes -= bytes;
+        deadStringBytes += bytes;
+    }
+
+    // Rewrite the arena with only live strings once dead bytes outweigh them
+    private void compactIfSparse() {
+        if (deadStringBytes < STRING_CHUNK_BYTES || deadStringBytes < liveStringBytes) {
+            return;
+        }
+        List<ByteBuffer> old = new ArrayList<>(strings);
+        strings.clear();
+        stringPosition = STRING_CHUNK_BYTES;
+        liveStringBytes = 0;
+        deadStringBytes = 0;
+        for (int record = 0; record < recordCount; record++) {
+            if (getInt(record, LIVE) != 0) {
+                long offset = getLong(record, STRINGS);
+                putLong(record, STRINGS, appendStrings(readString(old, offset), readString(old, skipString(old, offset))));
+            }
+        }
+    }
+
+    private static int putString(ByteBuffer chunk, int position, byte[] bytes) {
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            chunk.put(position++, (byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        chunk.put(position++, (byte) length);
+        chunk.put(position, bytes);
+        return position + bytes.length;
+    }
+
+    private String readString(long offset) {
+        return readString(strings, offset);
+    }
+
+    private long skipString(long offset) {
+        return skipString(strings, offset);
+    }
+
+    private static String readString(List<ByteBuffer> arena, long offset) {
+        ByteBuffer chunk = arena.get((int) (offset >>> STRING_CHUNK_SHIFT));
+        int position = (int) (offset & (STRING_CHUNK_BYTES - 1));
+        int length = stringLength(chunk, position);
+        byte[] bytes = new byte[length];
+        chunk.get(position + prefixBytes(length), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Offset just past the string at offset
+    private static long skipString(List<ByteBuffer> arena, long offset) {
+        ByteBuffer chunk = arena.get((int) (offset >>> STRING_CHUNK_SHIFT));
+        int length = stringLength(chunk, (int) (offset & (STRING_CHUNK_BYTES - 1)));
+        return offset + prefixBytes(length) + length;
+    }
+
+    // Compare the string at offset with a value; ASCII values are compared without allocating
+    private boolean stringEquals(long offset, String value) {
+        ByteBuffer chunk = strings.get((int) (offset >>> STRING_CHUNK_SHIFT));
+        int position = (int) (offset & (STRING_CHUNK_BYTES - 1));
+        int length = stringLength(chunk, position);
+        position += prefixBytes(length);
+
+        int n = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            if (length != n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (chunk.get(position + i) != (byte) value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (length != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(position + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int stringLength(ByteBuffer chunk, int position) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk.get(position++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    // Size of the varint length prefix for a string of the given byte length
+    private static int prefixBytes(int length) {
+        return (38 - Integer.numberOfLeadingZeros(length | 1)) / 7;
+    }
+
+    private int getInt(int record, int field) {
+        return records.get(record >>> RECORD_CHUNK_SHIFT).getInt((record & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES + field);
+    }
+
+    private void putInt(int record, int field, int value) {
+        records.get(record >>> RECORD_CHUNK_SHIFT).putInt((record & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES + field, value);
+    }
+
+    private long getLong(int record, int field) {
+        return records.get(record >>> RECORD_CHUNK_SHIFT).getLong((record & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES + field);
+    }
+
+    private void putLong(int record, int field, long value) {
+        records.get(record >>> RECORD_CHUNK_SHIFT).putLong((record & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES + field, value);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
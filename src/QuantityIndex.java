@@ -0,0 +1,369 @@
+import java.util.*;
+import java.util.function.Function;
+
+// Order-statistic tree of items keyed by (quantity, id), kept weight-balanced
+// (Adams' scheme with delta = 3, ratio = 2) so every operation is O(log n).
+// Each node caches the size of its subtree, which later allows rank and select queries.
+// Nodes are owned by their items and re-linked on update, so re-keying allocates nothing.
+// An item can sit in several indexes at once through separate nodes, e.g. the global index and
+// its category's; nodeOf tells build which of the item's nodes this index uses.
+class QuantityIndex
+{
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+
+    // Tree node for one item; quantity is the key snapshot taken when the node was linked
+    static final class Node {
+        final Main.Item item;
+        int quantity;
+        Node left;
+        Node right;
+        int size;
+
+        Node(Main.Item item) {
+            this.item = item;
+        }
+    }
+
+    private final Function<Main.Item, Node> nodeOf;
+    private Node root;
+
+    // Index linking each item's quantityNode
+    QuantityIndex() {
+        this(item -> item.quantityNode);
+    }
+
+    QuantityIndex(Function<Main.Item, Node> nodeOf) {
+        this.nodeOf = nodeOf;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    // Longest root-to-leaf path; weight balance keeps it within log base 4/3 of the size
+    int height() {
+        return height(root);
+    }
+
+    // Link a node using its item's current quantity as the key
+    public void insert(Node node) {
+        node.quantity = node.item.getQuantity();
+        root = insert(root, node);
+    }
+
+    // Unlink a node that was previously inserted
+    public void remove(Node node) {
+        root = remove(root, node);
+        node.left = null;
+        node.right = null;
+        node.size = 0;
+    }
+
+    // Replace the contents with the given items, building a perfectly balanced tree in one pass
+    // instead of n separate inserts. Items are sorted on a packed (quantity, position) primitive
+    // key first, so IDs are only compared within runs of equal quantity.
+    public void build(Main.Item[] items) {
+        int n = items.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) items[i].getQuantity() << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+
+        Main.Item[] sorted = new Main.Item[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = items[(int) keys[i]];
+        }
+        for (int start = 0; start < n; ) {
+            int end = start + 1;
+            while (end < n && sorted[end].getQuantity() == sorted[start].getQuantity()) {
+                end++;
+            }
+            if (end - start > 1) {
+                Arrays.sort(sorted, start, end, Comparator.comparing(Main.Item::getId));
+            }
+            start = end;
+        }
+        root = build(sorted, 0, n - 1);
+    }
+
+    // Re-key a node after its item's quantity changed
+    public void update(Node node) {
+        if (node.quantity == node.item.getQuantity()) {
+            return;
+        }
+        remove(node);
+        insert(node);
+    }
+
+    // Lowest quantity in the index, or 0 if it is empty, in O(log n)
+    public int lowestQuantity() {
+        Node node = root;
+        if (node == null) {
+            return 0;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.quantity;
+    }
+
+    // The k items with the highest quantity, highest first, in O(k + log n)
+    public List<Main.Item> highest(int k) {
+        return descendingAfter(0, null, k);
+    }
+
+    // The k items with the lowest quantity, lowest first, in O(k + log n)
+    public List<Main.Item> lowest(int k) {
+        return between(Integer.MIN_VALUE, Integer.MAX_VALUE, k);
+    }
+
+    // Up to limit items that come after the key (quantity, id) in descending order, in
+    // O(limit + log n); from the highest item when id is null. The key need not be in the index,
+    // so a caller can resume from the last item it saw even if that item changed since.
+    public List<Main.Item> descendingAfter(int quantity, String id, int limit) {
+        List<Main.Item> result = new ArrayList<>(Math.min(limit, size()));
+        Deque<Node> stack = new ArrayDeque<>();
+        // Path to the highest key below the cursor; the right spine when starting from the top
+        for (Node current = root; current != null; ) {
+            if (id == null || compare(current, quantity, id) < 0) {
+                stack.push(current);
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        while (!stack.isEmpty() && result.size() < limit) {
+            Node node = stack.pop();
+            result.add(node.item);
+            for (Node current = node.left; current != null; current = current.right) {
+                stack.push(current);
+            }
+        }
+        return result;
+    }
+
+    // Number of items with a quantity below the given one, in O(log n)
+    public int countBelow(int quantity) {
+        int count = 0;
+        Node current = root;
+        while (current != null) {
+            if (current.quantity < quantity) {
+                count += size(current.left) + 1;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return count;
+    }
+
+    // Number of items with a quantity in [min, max], in O(log n); 0 for an empty range
+    public int countBetween(int min, int max) {
+        if (min > max) {
+            return 0;
+        }
+        return max == Integer.MAX_VALUE ? size() - countBelow(min) : countBelow(max + 1) - countBelow(min);
+    }
+
+    // Item at the given 0-based rank in ascending order, in O(log n); null if out of range
+    public Main.Item select(int rank) {
+        Node current = root;
+        while (current != null) {
+            int leftSize = size(current.left);
+            if (rank < leftSize) {
+                current = current.left;
+            } else if (rank == leftSize) {
+                return current.item;
+            } else {
+                rank -= leftSize + 1;
+                current = current.right;
+            }
+        }
+        return null;
+    }
+
+    // Items with a quantity in [min, max], lowest first, in O(log n + result)
+    public List<Main.Item> between(int min, int max) {
+        return between(min, max, Integer.MAX_VALUE);
+    }
+
+    // Up to limit items with a quantity in [min, max], lowest first, in O(log n + limit)
+    private List<Main.Item> between(int min, int max, int limit) {
+        List<Main.Item> result = new ArrayList<>(Math.min(limit, 16));
+        Deque<Node> stack = new ArrayDeque<>();
+        // Path to the lowest key at or above min
+        for (Node current = root; current != null; ) {
+            if (current.quantity >= min) {
+                stack.push(current);
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        while (!stack.isEmpty() && result.size() < limit) {
+            Node node = stack.pop();
+            if (node.quantity > max) {
+                break;
+            }
+            result.add(node.item);
+            for (Node current = node.right; current != null; current = current.left) {
+                stack.push(current);
+            }
+        }
+        return result;
+    }
+
+    private Node build(Main.Item[] sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodeOf.apply(sorted[middle]);
+        node.quantity = node.item.getQuantity();
+        node.left = build(sorted, from, middle - 1);
+        node.right = build(sorted, middle + 1, to);
+        node.size = to - from + 1;
+        return node;
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            node.left = null;
+            node.right = null;
+            node.size = 1;
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return balance(tree);
+    }
+
+    private static Node remove(Node tree, Node node) {
+        if (tree == null) {
+            return null;
+        }
+        if (tree == node) {
+            return glue(tree.left, tree.right);
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        return balance(tree);
+    }
+
+    // Join two subtrees whose keys are already ordered, pulling the root from the larger side
+    private static Node glue(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size > right.size) {
+            Node max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            max.left = removeMax(left);
+            max.right = right;
+            return balance(max);
+        }
+        Node min = right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        min.right = removeMin(right);
+        min.left = left;
+        return balance(min);
+    }
+
+    private static Node removeMin(Node tree) {
+        if (tree.left == null) {
+            return tree.right;
+        }
+        tree.left = removeMin(tree.left);
+        return balance(tree);
+    }
+
+    private static Node removeMax(Node tree) {
+        if (tree.right == null) {
+            return tree.left;
+        }
+        tree.right = removeMax(tree.right);
+        return balance(tree);
+    }
+
+    private static Node balance(Node tree) {
+        int leftWeight = size(tree.left) + 1;
+        int rightWeight = size(tree.right) + 1;
+        if (rightWeight > DELTA * leftWeight) {
+            Node right = tree.right;
+            if (size(right.left) + 1 < RATIO * (size(right.right) + 1)) {
+                return rotateLeft(tree);
+            }
+            tree.right = rotateRight(right);
+            return rotateLeft(tree);
+        }
+        if (leftWeight > DELTA * rightWeight) {
+            Node left = tree.left;
+            if (size(left.right) + 1 < RATIO * (size(left.left) + 1)) {
+                return rotateRight(tree);
+            }
+            tree.left = rotateLeft(left);
+            return rotateRight(tree);
+        }
+        tree.size = leftWeight + rightWeight - 1;
+        return tree;
+    }
+
+    private static Node rotateLeft(Node tree) {
+        Node right = tree.right;
+        tree.right = right.left;
+        resize(tree);
+        right.left = tree;
+        resize(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node tree) {
+        Node left = tree.left;
+        tree.left = left.right;
+        resize(tree);
+        left.right = tree;
+        resize(left);
+        return left;
+    }
+
+    private static void resize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Ascending by quantity, ties broken by ID so every key is unique
+    private static int compare(Node a, Node b) {
+        return compare(a, b.quantity, b.item.getId());
+    }
+
+    private static int compare(Node node, int quantity, String id) {
+        int byQuantity = Integer.compare(node.quantity, quantity);
+        return byQuantity != 0 ? byQuantity : node.item.getId().compareTo(id);
+    }
+}
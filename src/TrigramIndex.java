@@ -0,0 +1,252 @@
+import java.util.*;
+
+// Inverted index from the trigrams of normalized item names to the items containing them, for
+// typo-tolerant search. Each indexed item holds a dense slot number, and every trigram maps to
+// a sorted int array of slots. A query merges the posting lists of its own trigrams, so it only
+// touches items sharing at least one trigram, and scores each by the Dice coefficient of the two
+// trigram sets: 2 * shared / (query trigrams + name trigrams). A misspelled letter only breaks
+// the three trigrams covering it, so close names keep a high score.
+// Updates are incremental: a renamed item leaves only the lists of trigrams it lost and joins
+// only those it gained. Freed slots are reused, which keeps the slot range dense.
+class TrigramIndex
+{
+    static final double MIN_SIMILARITY = 0.3; // Matches scoring lower are not returned
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Sorted slots of the items containing one trigram
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            slots[at] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    // A scored item; the quantity is read once so ranking stays consistent during the search
+    private static final class Match {
+        final Main.Item item;
+        final double similarity;
+        final int quantity;
+
+        Match(Main.Item item, double similarity) {
+            this.item = item;
+            this.similarity = similarity;
+            this.quantity = item.getQuantity();
+        }
+    }
+
+    private static final Comparator<Match> BY_RANK =
+            Comparator.<Match>comparingDouble(m -> m.similarity).thenComparingInt(m -> m.quantity);
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private Main.Item[] items = new Main.Item[INITIAL_CAPACITY]; // Item by slot, null for a free slot
+    private String[] names = new String[INITIAL_CAPACITY]; // Name each slot was indexed under
+    private int[] gramCounts = new int[INITIAL_CAPACITY]; // Distinct trigrams of each slot's name
+    private int slots; // Slots ever handed out
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeCount;
+
+    // Index a new item, or re-index one whose name changed; does nothing if the name is unchanged
+    public void update(Main.Item item) {
+        int slot = item.trigramSlot;
+        boolean indexed = slot >= 0 && slot < slots && items[slot] == item;
+        if (indexed && names[slot].equals(item.getName())) {
+            return;
+        }
+        long[] grams = trigrams(item.getName());
+        if (indexed) {
+            long[] old = trigrams(names[slot]);
+            for (long gram : old) {
+                if (Arrays.binarySearch(grams, gram) < 0) {
+                    removePosting(gram, slot);
+                }
+            }
+            for (long gram : grams) {
+                if (Arrays.binarySearch(old, gram) < 0) {
+                    postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+                }
+            }
+        } else {
+            slot = allocate(item);
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+            }
+        }
+        names[slot] = item.getName();
+        gramCounts[slot] = grams.length;
+    }
+
+    public void remove(Main.Item item) {
+        int slot = item.trigramSlot;
+        if (slot < 0 || slot >= slots || items[slot] != item) {
+            return;
+        }
+        for (long gram : trigrams(names[slot])) {
+            removePosting(gram, slot);
+        }
+        items[slot] = null;
+        names[slot] = null;
+        item.trigramSlot = -1;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+    }
+
+    // Up to limit items whose names are at least MIN_SIMILARITY alike to the query, most similar
+    // first and, among equally similar names, highest quantity first
+    public List<Main.Item> search(String query, int limit) {
+        long[] grams = trigrams(query);
+        int[][] lists = new int[grams.length][];
+        int[] sizes = new int[grams.length];
+        int count = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list != null && list.size > 0) {
+                lists[count] = list.slots;
+                sizes[count++] = list.size;
+            }
+        }
+
+        // Merge the posting lists with a heap of list numbers ordered by their current slot;
+        // each slot surfaces once per list that contains it
+        int[] positions = new int[count];
+        int[] heap = new int[count];
+        for (int i = 0; i < count; i++) {
+            heap[i] = i;
+        }
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(heap, count, i, lists, positions);
+        }
+        int heapSize = count;
+        PriorityQueue<Match> best = new PriorityQueue<>(BY_RANK);
+        while (heapSize > 0) {
+            int slot = lists[heap[0]][positions[heap[0]]];
+            int shared = 0;
+            while (heapSize > 0 && lists[heap[0]][positions[heap[0]]] == slot) {
+                shared++;
+                int list = heap[0];
+                if (++positions[list] == sizes[list]) {
+                    heap[0] = heap[--heapSize];
+                }
+                if (heapSize > 0) {
+                    siftDown(heap, heapSize, 0, lists, positions);
+                }
+            }
+            double similarity = 2.0 * shared / (grams.length + gramCounts[slot]);
+            if (similarity >= MIN_SIMILARITY) {
+                Match match = new Match(items[slot], similarity);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (BY_RANK.compare(match, best.peek()) > 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        }
+
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked, BY_RANK.reversed());
+        List<Main.Item> result = new ArrayList<>(ranked.length);
+        for (Match match : ranked) {
+            result.add(match.item);
+        }
+        return result;
+    }
+
+    // Distinct trigrams of a normalized name, sorted. Runs of whitespace count as one space, and
+    // the name is padded with two leading spaces and one trailing space, so even one- and
+    // two-letter names have trigrams and word starts weigh more than word ends.
+    static long[] trigrams(String name) {
+        String normalized = NameIndex.normalize(name);
+        StringBuilder text = new StringBuilder(normalized.length() + 3).append("  ");
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                text.append(c);
+            } else if (text.charAt(text.length() - 1) != ' ') {
+                text.append(' ');
+            }
+        }
+        text.append(' ');
+
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private int allocate(Main.Item item) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (slots == items.length) {
+                items = Arrays.copyOf(items, slots * 2);
+                names = Arrays.copyOf(names, slots * 2);
+                gramCounts = Arrays.copyOf(gramCounts, slots * 2);
+            }
+            slot = slots++;
+        }
+        items[slot] = item;
+        item.trigramSlot = slot;
+        return slot;
+    }
+
+    private void removePosting(long gram, int slot) {
+        Postings list = postings.get(gram);
+        if (list != null) {
+            list.remove(slot);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, int index, int[][] lists, int[] positions) {
+        int list = heap[index];
+        int value = lists[list][positions[list]];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && lists[heap[child + 1]][positions[heap[child + 1]]] < lists[heap[child]][positions[heap[child]]]) {
+                child++;
+            }
+            if (lists[heap[child]][positions[heap[child]]] >= value) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = list;
+    }
+}
@@ -0,0 +1,369 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// Append-only log of inventory mutations, written before each mutation is applied.
+//
+// Every record holds the resulting state of one item or threshold (put, remove, set quantity,
+// set threshold) rather than a delta. Replaying a record twice is therefore harmless, so a crash
+// between writing a snapshot and truncating the log cannot double-apply anything.
+//
+// Record frame (big-endian): int payload length, int CRC32 of payload, payload.
+// Payload: byte type, then the record's fields; strings are varint length + UTF-8.
+// Recovery stops at the first torn or corrupt frame, which can only be the unsynced tail.
+class WriteAheadLog implements AutoCloseable
+{
+    // When appended records are forced to disk
+    enum FsyncPolicy {
+        EVERY_OP,     // Force after every record; nothing acknowledged is ever lost
+        GROUP_COMMIT, // Force once per batch of N records or N milliseconds, whichever comes first
+        NONE          // Leave flushing to the OS; force only on sync, checkpoint and close
+    }
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SET_QUANTITY = 3;
+    private static final byte ITEM_THRESHOLD = 4;
+    private static final byte CATEGORY_THRESHOLD = 5;
+
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final int groupCommitOps;
+    private final long groupCommitNanos;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long appended; // Sequence number of the last appended record
+    private long durable;  // Sequence number of the last record known to be on disk
+    private long lastSyncNanos = System.nanoTime();
+    private int recordStart; // Buffer offset of the frame header of the record being written
+    private Thread syncer;
+    private volatile boolean closed;
+
+    private WriteAheadLog(Path path, FileChannel channel, FsyncPolicy policy, int groupCommitOps, long groupCommitMillis) {
+        this.path = path;
+        this.channel = channel;
+        this.policy = policy;
+        this.groupCommitOps = groupCommitOps;
+        this.groupCommitNanos = groupCommitMillis * 1_000_000L;
+    }
+
+    // Open a log for appending with EVERY_OP or NONE
+    public static WriteAheadLog open(Path path, FsyncPolicy policy) throws IOException {
+        if (policy == FsyncPolicy.GROUP_COMMIT) {
+            throw new IllegalArgumentException("Group commit needs a batch size and interval.");
+        }
+        return open(path, policy, 1, 0);
+    }
+
+    // Open a log for appending. A torn tail left by a crash is truncated first.
+    // With GROUP_COMMIT, a background thread also forces records that have waited groupCommitMillis.
+    public static WriteAheadLog open(Path path, FsyncPolicy policy, int groupCommitOps, long groupCommitMillis) throws IOException {
+        if (groupCommitOps <= 0 || groupCommitMillis < 0) {
+            throw new IllegalArgumentException("Group commit size must be positive and interval non-negative.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validBytes = scan(channel, null);
+        channel.truncate(validBytes);
+        channel.position(validBytes);
+
+        WriteAheadLog log = new WriteAheadLog(path, channel, policy, groupCommitOps, groupCommitMillis);
+        if (policy == FsyncPolicy.GROUP_COMMIT && groupCommitMillis > 0) {
+            log.syncer = new Thread(log::syncLoop, "wal-group-commit");
+            log.syncer.setDaemon(true);
+            log.syncer.start();
+        }
+        return log;
+    }
+
+    // Rebuild an inventory from a snapshot, if one exists, plus every intact record of the log
+    public static Main recover(Path snapshot, Path log) throws IOException {
+        Main inventory = Files.exists(snapshot) ? InventorySnapshot.load(snapshot) : new Main();
+        if (Files.exists(log)) {
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+                scan(channel, inventory);
+            }
+        }
+        return inventory;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized void logPut(String id, String name, String category, int quantity) {
+        ensure(1 + 3 * 5 + stringBytes(id) + stringBytes(name) + stringBytes(category) + 4);
+        buffer.put(PUT);
+        putString(id);
+        putString(name);
+        putString(category);
+        buffer.putInt(quantity);
+        endRecord();
+    }
+
+    public synchronized void logRemove(String id) {
+        ensure(1 + 5 + stringBytes(id));
+        buffer.put(REMOVE);
+        putString(id);
+        endRecord();
+    }
+
+    public synchronized void logSetQuantity(String id, int quantity) {
+        ensure(1 + 5 + stringBytes(id) + 4);
+        buffer.put(SET_QUANTITY);
+        putString(id);
+        buffer.putInt(quantity);
+        endRecord();
+    }
+
+    // threshold is -1 when the item's own threshold is cleared
+    public synchronized void logItemThreshold(String id, int threshold) {
+        ensure(1 + 5 + stringBytes(id) + 4);
+        buffer.put(ITEM_THRESHOLD);
+        putString(id);
+        buffer.putInt(threshold);
+        endRecord();
+    }
+
+    // threshold is -1 when the category's threshold is cleared
+    public synchronized void logCategoryThreshold(String category, int threshold) {
+        ensure(1 + 5 + stringBytes(category) + 4);
+        buffer.put(CATEGORY_THRESHOLD);
+        putString(category);
+        buffer.putInt(threshold);
+        endRecord();
+    }
+
+    // Force everything appended so far to disk
+    public synchronized void sync() {
+        try {
+            flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        durable = appended;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    // Write a snapshot of the inventory, then empty the log. Safe to crash at any point,
+    // because replaying the old log over the new snapshot only re-applies states it already has.
+    public synchronized void checkpoint(Main inventory, Path snapshot) throws IOException {
+        sync();
+        InventorySnapshot.save(inventory, snapshot);
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (syncer != null) {
+            // Wake the syncer rather than interrupting it: an interrupt during channel I/O would
+            // close the channel under the final sync below
+            synchronized (this) {
+                notifyAll();
+            }
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            sync();
+            channel.close();
+        }
+    }
+
+    // Frame the record just written into the buffer and apply the fsync policy
+    private void endRecord() {
+        int end = buffer.position();
+        int start = recordStart;
+        int length = end - start - FRAME_HEADER_BYTES;
+        crc.reset();
+        buffer.position(start + FRAME_HEADER_BYTES).limit(end);
+        crc.update(buffer); // Consumes the payload, leaving the position back at end
+        buffer.limit(buffer.capacity());
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        appended++;
+
+        switch (policy) {
+            case EVERY_OP -> sync();
+            case GROUP_COMMIT -> {
+                if (appended - durable >= groupCommitOps || System.nanoTime() - lastSyncNanos >= groupCommitNanos) {
+                    sync();
+                }
+            }
+            case NONE -> {
+                if (buffer.remaining() < BUFFER_BYTES / 4) {
+                    flushUnchecked();
+                }
+            }
+        }
+    }
+
+    // Make room for one record of at most the given payload size and reserve its frame header
+    private void ensure(int payloadBytes) {
+        int needed = FRAME_HEADER_BYTES + payloadBytes;
+        if (buffer.remaining() < needed) {
+            flushUnchecked();
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocateDirect(needed);
+            }
+        }
+        recordStart = buffer.position();
+        buffer.position(recordStart + FRAME_HEADER_BYTES);
+    }
+
+    private void flushUnchecked() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ASCII strings, the usual case, are copied char by char so appending allocates nothing
+    private void putString(String value) {
+        int n = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            putVarint(n);
+            for (int i = 0; i < n; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // Upper bound on the UTF-8 size of a string
+    private static int stringBytes(String value) {
+        return value.length() * 3;
+    }
+
+    private synchronized void syncLoop() {
+        while (!closed) {
+            try {
+                wait(Math.max(1, groupCommitNanos / 1_000_000L)); // Releases the lock while waiting
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!closed && appended > durable) {
+                sync();
+            }
+        }
+    }
+
+    // Read intact records from the start of the channel, applying them to inventory when it is
+    // not null. Returns the byte length of the intact prefix.
+    private static long scan(FileChannel channel, Main inventory) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        CRC32 checksum = new CRC32();
+        while (position + FRAME_HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            int length = header.getInt(0);
+            int expected = header.getInt(4);
+            if (length <= 0 || position + FRAME_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            while (payload.hasRemaining()) {
+                if (channel.read(payload, position + FRAME_HEADER_BYTES + payload.position()) < 0) {
+                    break;
+                }
+            }
+            payload.flip();
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                break;
+            }
+            if (inventory != null) {
+                try {
+                    apply(payload, inventory);
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed log record at offset " + position, e);
+                }
+            }
+            position += FRAME_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void apply(ByteBuffer payload, Main inventory) throws IOException {
+        byte type = payload.get();
+        switch (type) {
+            case PUT -> inventory.addOrUpdateItem(getString(payload), getString(payload), getString(payload), payload.getInt());
+            case REMOVE -> inventory.removeItem(getString(payload));
+            case SET_QUANTITY -> inventory.restoreQuantity(getString(payload), payload.getInt());
+            case ITEM_THRESHOLD -> {
+                String id = getString(payload);
+                int threshold = payload.getInt();
+                if (threshold < 0) {
+                    inventory.clearItemRestockThreshold(id);
+                } else {
+                    inventory.setItemRestockThreshold(id, threshold);
+                }
+            }
+            case CATEGORY_THRESHOLD -> {
+                String category = getString(payload);
+                int threshold = payload.getInt();
+                if (threshold < 0) {
+                    inventory.clearCategoryRestockThreshold(category);
+                } else {
+                    inventory.setCategoryRestockThreshold(category, threshold);
+                }
+            }
+            default -> throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = payload.get();
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
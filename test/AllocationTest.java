@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Regression test that updating an existing item's quantity allocates nothing.
+// Each case is warmed up until the JIT has compiled it, then run for several measured rounds
+// while the thread's allocated-byte counter is read before and after. A case fails only if every
+// round allocated, so a one-off compilation or deoptimization does not count against it.
+// Runs with the silent listener, both without a write-ahead log and with one that leaves
+// flushing to the OS (ASCII IDs and names; other strings are encoded through a temporary array).
+class AllocationTest
+{
+    private static final int ITEMS = 20_000;
+    private static final int UPDATES = 100_000;
+    private static final int LOGGED_UPDATES = UPDATES / 4; // Keeps the log file small
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Update {
+        void run(int index);
+    }
+
+    private static String[] ids;
+    private static String[] names;
+    private static String[] categories;
+    private static int[] samples;
+    private static int[] quantities;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUp() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported(), "Allocated-bytes counters are not supported by this JVM.");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        Random random = new Random(42);
+        ids = new String[ITEMS];
+        names = new String[ITEMS];
+        categories = new String[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            ids[i] = Integer.toString(i);
+            names[i] = "Item " + i;
+            categories[i] = "Category-" + (i % 100);
+        }
+        samples = new int[UPDATES];
+        quantities = new int[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            samples[i] = random.nextInt(ITEMS);
+            quantities[i] = random.nextInt(10_000); // Crosses the restock threshold now and then
+        }
+    }
+
+    @Test
+    void addOrUpdateItemAllocatesNothing() {
+        Main inventory = inventory();
+        assertAllocatesNothing(UPDATES, i -> {
+            int item = samples[i];
+            inventory.addOrUpdateItem(ids[item], names[item], categories[item], quantities[i]);
+        });
+    }
+
+    @Test
+    void adjustQuantityAllocatesNothing() {
+        Main inventory = inventory();
+        assertAllocatesNothing(UPDATES, i -> inventory.adjustQuantity(ids[samples[i]], (i & 1) == 0 ? 5 : -5));
+    }
+
+    @Test
+    void tryDecrementAllocatesNothing() {
+        Main inventory = inventory();
+        assertAllocatesNothing(UPDATES, i -> {
+            int item = samples[i];
+            if (!inventory.tryDecrement(ids[item], 1)) {
+                inventory.adjustQuantity(ids[item], 100);
+            }
+        });
+    }
+
+    @Test
+    void loggedAddOrUpdateItemAllocatesNothing() throws IOException {
+        Main inventory = inventory();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory.resolve("inventory.log"), WriteAheadLog.FsyncPolicy.NONE)) {
+            inventory.setWriteAheadLog(wal);
+            assertAllocatesNothing(LOGGED_UPDATES, i -> {
+                int item = samples[i];
+                inventory.addOrUpdateItem(ids[item], names[item], categories[item], quantities[i]);
+            });
+            inventory.setWriteAheadLog(null);
+        }
+    }
+
+    @Test
+    void loggedAdjustQuantityAllocatesNothing() throws IOException {
+        Main inventory = inventory();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory.resolve("inventory.log"), WriteAheadLog.FsyncPolicy.NONE)) {
+            inventory.setWriteAheadLog(wal);
+            assertAllocatesNothing(LOGGED_UPDATES, i -> inventory.adjustQuantity(ids[samples[i]], (i & 1) == 0 ? 5 : -5));
+            inventory.setWriteAheadLog(null);
+        }
+    }
+
+    private static Main inventory() {
+        Random random = new Random(7);
+        Main inventory = new Main();
+        for (int i = 0; i < ITEMS; i++) {
+            inventory.addOrUpdateItem(ids[i], names[i], categories[i], 1 + random.nextInt(10_000));
+        }
+        return inventory;
+    }
+
+    // Fails unless some measured round allocated nothing
+    private static void assertAllocatesNothing(int updates, Update update) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(updates, update);
+        }
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            fewest = Math.min(fewest, runRound(updates, update));
+        }
+        assertEquals(0.0, (double) fewest / updates, "bytes per update");
+    }
+
+    // Bytes the current thread allocated while running one round
+    private static long runRound(int updates, Update update) {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < updates; i++) {
+            update.run(i);
+        }
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+}
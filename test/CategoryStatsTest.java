@@ -0,0 +1,30 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The lowest quantity must stay right after the items holding it leave or rise
+class CategoryStatsTest
+{
+    @Test
+    void lowestQuantityIsFoundAgainAfterItLeaves() {
+        Main inventory = new Main();
+        inventory.addOrUpdateItem("1", "Bolt", "Hardware", 3);
+        inventory.addOrUpdateItem("2", "Nut", "Hardware", 3);
+        inventory.addOrUpdateItem("3", "Screw", "Hardware", 8);
+        inventory.addOrUpdateItem("4", "Washer", "Hardware", 12);
+        assertEquals(3, inventory.getCategoryStats("Hardware").getMinQuantity());
+
+        inventory.removeItem("1");
+        inventory.adjustQuantity("2", 20); // The last item at 3 rises
+        assertEquals(8, inventory.getCategoryStats("Hardware").getMinQuantity());
+
+        // Both items at the new lowest must leave before it goes stale again
+        inventory.addOrUpdateItem("5", "Rivet", "Hardware", 8);
+        assertEquals(8, inventory.getCategoryStats("Hardware").getMinQuantity());
+        inventory.removeItem("3");
+        assertEquals(8, inventory.getCategoryStats("Hardware").getMinQuantity());
+        inventory.adjustQuantity("5", 10);
+        assertEquals(12, inventory.getCategoryStats("Hardware").getMinQuantity());
+        assertEquals(23, inventory.getCategoryStats("Hardware").getMaxQuantity());
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Subtree rollups of category paths must follow items as they move between categories
+class CategoryTreeTest
+{
+    private static final String[] CATEGORIES = {
+            "Electronics", "Electronics/Computers", "Electronics/Computers/Laptops", "Electronics/Phones",
+            "Electronics2", "Home", "Home/Garden", "Home/Garden/Tools", "HomeGarden", "Toys"};
+    private static final String[] PATHS = {
+            "Electronics", "Electronics/Computers", "Electronics/Computers/Laptops", "Electronics/Phones",
+            "Electronics2", "Home", "Home/Garden", "Home/Garden/Tools", "HomeGarden", "Toys",
+            "Elec", "Electronics/Comp", "Home/Kitchen"};
+
+    @Test
+    void subtreeTotalsFollowAnItemThatMoves() {
+        Main inventory = new Main();
+        inventory.addOrUpdateItem("laptop", "Laptop", "Electronics/Computers/Laptops", 5);
+        inventory.addOrUpdateItem("phone", "Phone", "Electronics/Phones", 7);
+        inventory.addOrUpdateItem("rake", "Rake", "Home/Garden", 3);
+        assertEquals(12, inventory.getSubtreeQuantity("Electronics"));
+        assertEquals(5, inventory.getSubtreeQuantity("Electronics/Computers"));
+        assertEquals(3, inventory.getSubtreeQuantity("Home"));
+
+        // Out of Electronics into a category the tree has not seen yet
+        inventory.addOrUpdateItem("laptop", "Laptop", "Home/Office", 6);
+        assertEquals(7, inventory.getSubtreeQuantity("Electronics"));
+        assertEquals(0, inventory.getSubtreeQuantity("Electronics/Computers"));
+        assertEquals(9, inventory.getSubtreeQuantity("Home"));
+        assertEquals("[phone]", ids(inventory.getItemsUnderCategory("Electronics")));
+        assertEquals("[laptop, rake]", ids(inventory.getItemsUnderCategory("Home")));
+
+        // And back, with only the category changing
+        inventory.addOrUpdateItem("laptop", "Laptop", "Electronics/Computers", 6);
+        assertEquals(13, inventory.getSubtreeQuantity("Electronics"));
+        assertEquals(6, inventory.getSubtreeQuantity("Electronics/Computers"));
+        assertEquals(3, inventory.getSubtreeQuantity("Home"));
+        assertEquals(0, inventory.getSubtreeQuantity("Home/Office"));
+    }
+
+    @Test
+    void subtreesMatchAScanUnderRandomMoves() {
+        Main inventory = new Main();
+        Map<String, String> categories = new HashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        Random random = new Random(19);
+        for (int op = 0; op < 20_000; op++) {
+            String id = "SKU" + random.nextInt(300);
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                inventory.removeItem(id);
+                categories.remove(id);
+                quantities.remove(id);
+            } else if (choice < 3 && quantities.containsKey(id)) {
+                int delta = random.nextInt(50);
+                inventory.adjustQuantity(id, delta);
+                quantities.merge(id, delta, Integer::sum);
+            } else {
+                // Categories join gradually, so the tree also renumbers between queries
+                String category = CATEGORIES[random.nextInt(Math.min(CATEGORIES.length, 2 + op / 2000))];
+                int quantity = random.nextInt(100);
+                inventory.addOrUpdateItem(id, "Item " + id, category, quantity);
+                categories.put(id, category);
+                quantities.put(id, quantity);
+            }
+            if (op % 500 == 0 || op == 19_999) {
+                for (String path : PATHS) {
+                    long total = 0;
+                    List<String> under = new ArrayList<>();
+                    for (Map.Entry<String, String> entry : categories.entrySet()) {
+                        String category = entry.getValue();
+                        if (category.equals(path) || category.startsWith(path + "/")) {
+                            total += quantities.get(entry.getKey());
+                            under.add(entry.getKey());
+                        }
+                    }
+                    assertEquals(total, inventory.getSubtreeQuantity(path), path + " after op " + op);
+                    List<String> listed = new ArrayList<>();
+                    for (Main.Item item : inventory.getItemsUnderCategory(path)) {
+                        listed.add(item.getId());
+                    }
+                    Collections.sort(under);
+                    Collections.sort(listed);
+                    assertEquals(under, listed, path + " after op " + op);
+                }
+            }
+        }
+    }
+
+    private static String ids(List<Main.Item> items) {
+        List<String> ids = new ArrayList<>();
+        for (Main.Item item : items) {
+            ids.add(item.getId());
+        }
+        Collections.sort(ids);
+        return ids.toString();
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// CompactItemStore against a map of the same items, across growth, row moves and arena compaction
+class CompactItemStoreTest
+{
+    private final CompactItemStore store = new CompactItemStore();
+    private final Map<String, String> expected = new HashMap<>();
+    private final Random random = new Random(5);
+
+    @Test
+    void growsPastTheInitialRows() {
+        for (int i = 0; i < 10_000; i++) {
+            put("SKU" + i, "Item " + i, i % 2 == 0 ? "Tools" : "Garden", i);
+        }
+        assertContents();
+
+        for (int i = 0; i < 10_000; i += 7) {
+            put("SKU" + i, "Item " + i, "Toys", -i);
+        }
+        assertContents();
+    }
+
+    @Test
+    void removalsKeepTheRemainingRowsFindable() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            ids.add("SKU" + i);
+            put("SKU" + i, "Item " + i, "Tools", i);
+        }
+        Collections.shuffle(ids, random);
+        for (String id : ids.subList(0, 2000)) {
+            assertTrue(store.remove(id));
+            expected.remove(id);
+        }
+        for (String id : ids.subList(0, 2000)) {
+            assertEquals(-1, store.find(id));
+            assertFalse(store.remove(id));
+        }
+        assertContents();
+
+        // Rows freed at the end are filled again by new items
+        for (int i = 0; i < 2000; i++) {
+            put("NEW" + i, "New item " + i, "Garden", i);
+        }
+        assertContents();
+    }
+
+    @Test
+    void compactsTheArenaAfterRenamesAndRemovals() {
+        String padding = "x".repeat(100);
+        // Uncompacted, 200 rounds of renames would leave about 11 MB of dead names
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 500; i++) {
+                put("SKU" + i, "Gerät " + i + " rev " + round + padding, "Tools", round);
+            }
+        }
+        assertTrue(store.arenaCapacity() <= 1 << 20, "Arena bytes: " + store.arenaCapacity());
+        assertContents();
+
+        for (int i = 0; i < 500; i += 2) {
+            assertTrue(store.remove("SKU" + i));
+            expected.remove("SKU" + i);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            put("ADD" + i, "Added " + i + padding, "Garden", i);
+            assertTrue(store.remove("ADD" + i));
+            expected.remove("ADD" + i);
+        }
+        assertTrue(store.arenaCapacity() <= 1 << 20, "Arena bytes: " + store.arenaCapacity());
+        assertContents();
+    }
+
+    private void put(String id, String name, String category, int quantity) {
+        int row = store.put(id, name, category, quantity);
+        assertEquals(row, store.find(id));
+        expected.put(id, name + "|" + category + "|" + quantity);
+    }
+
+    private void assertContents() {
+        assertEquals(expected.size(), store.size());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            int row = store.find(entry.getKey());
+            assertTrue(row >= 0 && row < store.size(), entry.getKey() + " at row " + row);
+            CompactItemStore.View item = store.view(row);
+            assertEquals(entry.getKey(), item.getId());
+            assertEquals(entry.getValue(), item.getName() + "|" + item.getCategory() + "|" + item.getQuantity());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ConcurrentInventory under threads racing lock-free quantity changes against category moves.
+// Afterwards no stock may be negative, the category heaps must be ordered by the final quantities,
+// and every item left below the restock threshold must have been reported as low stock.
+class ConcurrentInventoryTest
+{
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 50_000;
+    private static final int COUNTERS = 16; // Only ever changed by deltas, so their totals are known
+    private static final int CONTENDED = 16; // Also rewritten by addOrUpdateItem
+    private static final String[] CATEGORIES = {"Tools", "Garden", "Toys", "Books"};
+
+    @Test
+    void racingUpdatesKeepStockAndIndexesConsistent() throws Exception {
+        ConcurrentInventory inventory = new ConcurrentInventory(2); // Few stripes, so moves contend
+        Set<Main.Item> reportedLow = ConcurrentHashMap.newKeySet();
+        inventory.setListener(new InventoryListener() {
+            @Override
+            public void lowStock(Main.Item item) {
+                reportedLow.add(item);
+            }
+        });
+
+        AtomicLong[] expectedCounters = new AtomicLong[COUNTERS];
+        for (int i = 0; i < COUNTERS; i++) {
+            inventory.addOrUpdateItem("C" + i, "Counter " + i, CATEGORIES[i % CATEGORIES.length], 100);
+            expectedCounters[i] = new AtomicLong(100);
+        }
+        for (int i = 0; i < CONTENDED; i++) {
+            inventory.addOrUpdateItem("X" + i, "Contended " + i, CATEGORIES[i % CATEGORIES.length], 20);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            workers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int op = 0; op < OPS_PER_THREAD; op++) {
+                    boolean counter = random.nextBoolean();
+                    int index = random.nextInt(counter ? COUNTERS : CONTENDED);
+                    String id = (counter ? "C" : "X") + index;
+                    int choice = random.nextInt(3);
+                    if (choice == 0) {
+                        int n = 1 + random.nextInt(5);
+                        if (inventory.tryDecrement(id, n) && counter) {
+                            expectedCounters[index].addAndGet(-n);
+                        }
+                    } else if (choice == 1 || counter) {
+                        int delta = random.nextInt(11) - 5;
+                        if (inventory.adjustQuantity(id, delta) && counter) {
+                            expectedCounters[index].addAndGet(delta);
+                        }
+                    } else {
+                        inventory.addOrUpdateItem(id, "Contended " + index,
+                                CATEGORIES[random.nextInt(CATEGORIES.length)], random.nextInt(30));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Main.Item> items = new HashMap<>();
+        for (String category : CATEGORIES) {
+            List<Main.Item> heap = inventory.getItemsByCategory(category);
+            for (int slot = 0; slot < heap.size(); slot++) {
+                Main.Item item = heap.get(slot);
+                assertNull(items.put(item.getId(), item), "Indexed twice: " + item.getId());
+                assertEquals(category, item.getCategory(), item.getId());
+                assertTrue(item.getQuantity() >= 0, item + " has negative stock");
+                // No lock-free change may be left unindexed once every thread has finished
+                assertEquals(slot, item.heapIndex, item.getId());
+                assertEquals(item.getQuantity(), item.heapKey, item.getId());
+                if (slot > 0) {
+                    Main.Item parent = heap.get((slot - 1) / 2);
+                    assertTrue(parent.getQuantity() >= item.getQuantity(), parent + " above " + item);
+                }
+                if (item.getQuantity() < Main.DEFAULT_RESTOCK_THRESHOLD) {
+                    assertTrue(reportedLow.contains(item), item + " was never reported low");
+                }
+            }
+        }
+        assertEquals(COUNTERS + CONTENDED, items.size());
+        assertEquals(COUNTERS + CONTENDED, inventory.size());
+        for (int i = 0; i < COUNTERS; i++) {
+            assertEquals(expectedCounters[i].get(), items.get("C" + i).getQuantity(), "C" + i);
+        }
+
+        List<Main.Item> sorted = new ArrayList<>(items.values());
+        sorted.sort(Comparator.comparingInt(Main.Item::getQuantity).reversed());
+        for (int k = 1; k <= sorted.size(); k++) {
+            List<Main.Item> top = inventory.getTopKItems(k);
+            assertEquals(k, top.size());
+            assertEquals(sorted.get(k - 1).getQuantity(), top.get(k - 1).getQuantity(), "top " + k);
+        }
+    }
+}
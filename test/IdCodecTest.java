@@ -0,0 +1,73 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// IdCodec: which IDs pack into a long, where the tag bit sits, and that decode inverts encode
+class IdCodecTest
+{
+    private static final long TAG = 1L << 62;
+
+    @Test
+    void decimalIdsEncodeAsTheirOwnValue() {
+        for (String id : new String[] {"0", "7", "42", "1000000", "999999999999999999"}) {
+            long code = IdCodec.encode(id);
+            assertEquals(Long.parseLong(id), code);
+            assertEquals(0, code & TAG, id);
+            assertEquals(id, IdCodec.decode(code));
+        }
+    }
+
+    @Test
+    void otherAlphanumericIdsCarryTheTagBit() {
+        String[] ids = {"A", "z", "AB12345", "sku42", "007", "00", "000", "0000000000", "zzzzzzzzzz", "1234567890a"};
+        Set<Long> codes = new HashSet<>();
+        for (String id : ids) {
+            long code = IdCodec.encode(id);
+            if (id.length() > 10) {
+                assertEquals(IdCodec.NOT_ENCODABLE, code, id);
+                continue;
+            }
+            assertEquals(TAG, code & (TAG | Long.MIN_VALUE), id); // Bit 62 set, sign bit clear
+            assertTrue(codes.add(code), id);
+            assertEquals(id, IdCodec.decode(code));
+        }
+        // Zero-padded numbers are not confused with the decimal form or with each other
+        assertNotEquals(IdCodec.encode("7"), IdCodec.encode("07"));
+        assertNotEquals(IdCodec.encode("0"), IdCodec.encode("00"));
+    }
+
+    @Test
+    void rejectsIdsThatDoNotFit() {
+        String[] ids = {"", "-1", "+5", "1.5", "A-1", "Gerät", "ABCDEFGHIJK", "1234567890123456789", "01234567890"};
+        for (String id : ids) {
+            assertEquals(IdCodec.NOT_ENCODABLE, IdCodec.encode(id), id);
+        }
+    }
+
+    @Test
+    void randomIdsRoundTripToDistinctCodes() {
+        String alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        Random random = new Random(3);
+        Map<Long, String> seen = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String id;
+            if (random.nextBoolean()) {
+                id = Long.toString(random.nextLong(1_000_000_000_000_000_000L));
+            } else {
+                char[] chars = new char[1 + random.nextInt(10)];
+                for (int c = 0; c < chars.length; c++) {
+                    chars[c] = alphabet.charAt(random.nextInt(alphabet.length()));
+                }
+                id = new String(chars);
+            }
+            long code = IdCodec.encode(id);
+            assertTrue(code >= 0, id);
+            assertEquals(id, IdCodec.decode(code));
+            String previous = seen.put(code, id);
+            assertTrue(previous == null || previous.equals(id), id + " and " + previous);
+        }
+    }
+}
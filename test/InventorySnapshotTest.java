@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventorySnapshotTest
+{
+    // More than one decode chunk, so the items are decoded in parallel
+    private static final int ITEMS = 70_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadRestoresEveryItemAndIndex() throws IOException {
+        Main inventory = inventory();
+        Path snapshot = directory.resolve("inventory.snap");
+        InventorySnapshot.save(inventory, snapshot);
+        Main loaded = InventorySnapshot.load(snapshot);
+
+        InventoryState.assertMatches(InventoryState.of(inventory), loaded);
+        assertEquals(versions(inventory), versions(loaded));
+        assertEquals(inventory.categoryRestockThresholds(), loaded.categoryRestockThresholds());
+
+        // The rebuilt indexes keep working under further changes
+        for (Main target : List.of(inventory, loaded)) {
+            target.adjustQuantity("7", -3);
+            target.removeItem("8");
+            target.addOrUpdateItem("9", "Moved", "Category-1", 2);
+        }
+        InventoryState.assertMatches(InventoryState.of(inventory), loaded);
+    }
+
+    @Test
+    void loadRejectsAFlippedByte() throws IOException {
+        Path snapshot = directory.resolve("inventory.snap");
+        InventorySnapshot.save(inventory(), snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(snapshot, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> InventorySnapshot.load(snapshot));
+        assertTrue(error.getMessage().startsWith("Snapshot checksum mismatch"), error.getMessage());
+    }
+
+    private static Main inventory() {
+        Random random = new Random(3);
+        Main inventory = new Main();
+        for (int i = 0; i < ITEMS; i++) {
+            String name = (i % 1000 == 0 ? "Çay bardağı " : "Item ") + i; // Some non-ASCII names
+            inventory.addOrUpdateItem(Integer.toString(i), name, "Category-" + (i % 50), random.nextInt(500));
+            if (i % 97 == 0) {
+                inventory.setItemRestockThreshold(Integer.toString(i), random.nextInt(100));
+            }
+        }
+        inventory.setCategoryRestockThreshold("Category-3", 40);
+        inventory.setCategoryRestockThreshold("Unused", 5); // A threshold with no items yet
+        return inventory;
+    }
+
+    private static Map<String, Long> versions(Main inventory) {
+        Map<String, Long> versions = new HashMap<>();
+        for (Main.Item item : inventory.items()) {
+            versions.put(item.getId(), item.getVersion());
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Everything an inventory answers, as one string tests can compare: every item with all its
+// fields, sorted by ID, then what the derived indexes report for each category and name prefix.
+// Lists without a defined order are sorted by ID first.
+final class InventoryState
+{
+    private InventoryState() {
+    }
+
+    static String of(Main inventory) {
+        List<Main.Item> items = new ArrayList<>(inventory.items());
+        items.sort(Comparator.comparing(Main.Item::getId));
+        SortedSet<String> categories = new TreeSet<>();
+        SortedSet<String> prefixes = new TreeSet<>();
+        StringBuilder state = new StringBuilder();
+        for (Main.Item item : items) {
+            state.append(item.getId()).append('|').append(item.getName()).append('|')
+                    .append(item.getCategory()).append('|').append(item.getQuantity()).append('|')
+                    .append(item.restockThreshold).append('\n');
+            categories.add(item.getCategory());
+            prefixes.add(item.getName().substring(0, 1));
+        }
+
+        int all = Math.max(1, items.size());
+        state.append(inventory.getTopKItems(all)).append('\n');
+        state.append(inventory.getBottomKItems(all)).append('\n');
+        List<Main.Item> lowStock = new ArrayList<>(inventory.getLowStockItems()); // In no particular order
+        lowStock.sort(Comparator.comparing(Main.Item::getId));
+        state.append(lowStock).append('\n');
+        for (String category : categories) {
+            List<Main.Item> inCategory = new ArrayList<>(inventory.getItemsByCategory(category)); // In heap order
+            inCategory.sort(Comparator.comparing(Main.Item::getId));
+            state.append(category).append(": ").append(inCategory).append('\n');
+            state.append(inventory.getCategoryStats(category)).append('\n');
+            state.append(inventory.getBottomKItems(category, all)).append('\n');
+        }
+        state.append(inventory.getTopKPerCategory(all)).append('\n');
+        for (String prefix : prefixes) {
+            state.append(prefix).append(": ").append(inventory.searchByNamePrefix(prefix, all)).append('\n');
+        }
+        return state.toString();
+    }
+
+    // Fails with only the first differing line, since a whole state can run to megabytes
+    static void assertMatches(String expected, Main actual) {
+        String[] want = expected.split("\n", -1);
+        String[] got = of(actual).split("\n", -1);
+        for (int i = 0; i < Math.min(want.length, got.length); i++) {
+            if (!want[i].equals(got[i])) {
+                fail("State differs at line " + i + ":\nexpected " + clip(want[i]) + "\nactual   " + clip(got[i]));
+            }
+        }
+        assertEquals(want.length, got.length, "state lines");
+    }
+
+    private static String clip(String line) {
+        return line.length() <= 300 ? line : line.substring(0, 300) + "...";
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ItemIdIndex against a HashMap: backward-shift deletion must leave every probe chain intact
+class ItemIdIndexTest
+{
+    @Test
+    void removingAnyEntryKeepsTheRestFindable() {
+        // Ten keys in the 16-slot starting table leave long probe runs; remove each one in turn
+        List<String> ids = List.of("1", "2", "3", "17", "33", "A", "B", "SKU1", "SKU2", "007");
+        for (String victim : ids) {
+            ItemIdIndex index = new ItemIdIndex(0);
+            Map<String, Main.Item> expected = new HashMap<>();
+            for (String id : ids) {
+                Main.Item item = item(id);
+                index.put(id, item);
+                expected.put(id, item);
+            }
+            assertSame(expected.remove(victim), index.remove(victim));
+            assertNull(index.remove(victim));
+            assertMatches(expected, index, ids);
+
+            Main.Item again = item(victim);
+            assertNull(index.put(victim, again));
+            expected.put(victim, again);
+            assertMatches(expected, index, ids);
+        }
+    }
+
+    @Test
+    void matchesAHashMapUnderChurn() {
+        Random random = new Random(9);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            ids.add(Integer.toString(i * 16)); // Decimal codes
+            ids.add("SKU" + i); // Base-63 codes
+            ids.add("item-" + i); // Not encodable, kept in the fallback map
+        }
+        ItemIdIndex index = new ItemIdIndex(0);
+        Map<String, Main.Item> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), index.remove(id), id);
+            } else {
+                Main.Item item = item(id);
+                assertSame(expected.put(id, item), index.put(id, item), id);
+            }
+            if (op % 10_000 == 0) {
+                assertMatches(expected, index, ids);
+            }
+        }
+        assertMatches(expected, index, ids);
+    }
+
+    private static Main.Item item(String id) {
+        return new Main.Item(id, "Item " + id, "Tools", 1);
+    }
+
+    private static void assertMatches(Map<String, Main.Item> expected, ItemIdIndex index, List<String> ids) {
+        assertEquals(expected.size(), index.size());
+        for (String id : ids) {
+            assertSame(expected.get(id), index.get(id), id);
+        }
+        Set<Main.Item> values = Collections.newSetFromMap(new IdentityHashMap<>());
+        values.addAll(index.values());
+        assertEquals(expected.size(), values.size());
+        for (Main.Item item : expected.values()) {
+            assertTrue(values.contains(item), item.getId());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cursor pagination of a category: pages follow quantity order and resume correctly after changes
+class ItemPageTest
+{
+    private static final Comparator<Main.Item> DESCENDING =
+            Comparator.comparingInt(Main.Item::getQuantity).thenComparing(Main.Item::getId).reversed();
+
+    private final Random random = new Random(20);
+
+    @Test
+    void pagesListTheCategoryInQuantityOrder() {
+        Main inventory = new Main();
+        List<Main.Item> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inventory.addOrUpdateItem("SKU" + i, "Item " + i, "Tools", random.nextInt(50));
+            inventory.addOrUpdateItem("G" + i, "Other " + i, "Garden", random.nextInt(50));
+        }
+        expected.addAll(inventory.getItemsByCategory("Tools"));
+        expected.sort(DESCENDING);
+
+        List<Main.Item> listed = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ItemPage page = inventory.getItemsByCategory("Tools", 37, cursor);
+            assertTrue(page.getItems().size() == 37 || !page.hasMore());
+            listed.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(expected, listed);
+        assertEquals(28, pages);
+
+        assertTrue(inventory.getItemsByCategory("Tools", 10, "not a cursor!").getItems().isEmpty());
+    }
+
+    @Test
+    void cursorsResumeInPlaceWhileTheCategoryChanges() {
+        Main inventory = new Main();
+        Set<String> untouched = new HashSet<>(); // Present for the whole scan with a fixed quantity
+        List<String> unseen = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            inventory.addOrUpdateItem("SKU" + i, "Item " + i, "Tools", random.nextInt(40));
+            untouched.add("SKU" + i);
+            unseen.add("SKU" + i);
+        }
+
+        Set<String> seen = new HashSet<>();
+        Set<String> gone = new HashSet<>(); // Removed or moved away before the scan reached them
+        Main.Item previous = null;
+        String cursor = null;
+        int added = 0;
+        do {
+            ItemPage page = inventory.getItemsByCategory("Tools", 25, cursor);
+            for (Main.Item item : page.getItems()) {
+                assertTrue(previous == null || DESCENDING.compare(previous, item) < 0, item + " after " + previous);
+                assertTrue(seen.add(item.getId()), "Listed twice: " + item.getId());
+                assertFalse(gone.contains(item.getId()), "Listed after it left: " + item.getId());
+                unseen.remove(item.getId());
+                previous = item;
+            }
+            if (!page.getItems().isEmpty()) {
+                // The cursor's own item disappears, so the next page resumes from a missing key
+                String last = page.getItems().get(page.getItems().size() - 1).getId();
+                inventory.removeItem(last);
+                untouched.remove(last);
+            }
+            for (int i = 0; i < 3 && unseen.size() > 1; i++) {
+                String id = unseen.remove(random.nextInt(unseen.size()));
+                if (i == 0) {
+                    inventory.addOrUpdateItem(id, "Moved " + id, "Garden", 1);
+                } else {
+                    inventory.removeItem(id);
+                }
+                untouched.remove(id);
+                gone.add(id);
+            }
+            for (int i = 0; i < 5; i++) {
+                inventory.addOrUpdateItem("NEW" + added++, "New item", "Tools", random.nextInt(40));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        for (String id : untouched) {
+            assertTrue(seen.contains(id), "Skipped: " + id);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The sequential and parallel merges must leave the same inventory behind, and a log written
+// during either must recover to it.
+class MergeInventoryTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void newItemsKeepTheirRestockThreshold() throws IOException {
+        Main sequential = inventory();
+        Main parallel = inventory();
+        try (WriteAheadLog sequentialLog = open("sequential.log"); WriteAheadLog parallelLog = open("parallel.log")) {
+            sequential.setWriteAheadLog(sequentialLog);
+            sequential.mergeInventory(other());
+            parallel.setWriteAheadLog(parallelLog);
+            parallel.mergeInventoryParallel(other());
+        }
+
+        // Phone is below its own threshold of 20, not the default one
+        assertEquals("[Phone]", names(sequential.getLowStockItems()));
+        assertEquals("[Phone]", names(parallel.getLowStockItems()));
+        assertEquals(1, sequential.getCategoryStats("Electronics").getLowStockCount());
+        assertEquals(1, parallel.getCategoryStats("Electronics").getLowStockCount());
+        assertEquals("[Phone]", names(recover("sequential.log").getLowStockItems()));
+        assertEquals("[Phone]", names(recover("parallel.log").getLowStockItems()));
+    }
+
+    @Test
+    void mergingAnInventoryIntoItselfChangesNothing() throws IOException {
+        Main inventory = inventory();
+        inventory.addOrUpdateItem("2", "Phone", "Electronics", 15);
+        String before = InventoryState.of(inventory);
+        Path log = directory.resolve("self.log");
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.EVERY_OP)) {
+            inventory.setWriteAheadLog(wal);
+            inventory.mergeInventory(inventory, MergePolicy.SUM);
+            InventoryState.assertMatches(before, inventory);
+            MergeSummary summary = inventory.mergeInventoryParallel(inventory, MergePolicy.SUM);
+            assertEquals(0, summary.getUpdated());
+            InventoryState.assertMatches(before, inventory);
+        }
+        assertEquals(0, Files.size(log));
+    }
+
+    private static Main inventory() {
+        Main inventory = new Main();
+        inventory.addOrUpdateItem("1", "Laptop", "Electronics", 30);
+        return inventory;
+    }
+
+    private static Main other() {
+        Main other = new Main();
+        other.addOrUpdateItem("1", "Laptop", "Electronics", 40);
+        other.addOrUpdateItem("2", "Phone", "Electronics", 15);
+        other.setItemRestockThreshold("2", 20);
+        return other;
+    }
+
+    private WriteAheadLog open(String log) throws IOException {
+        return WriteAheadLog.open(directory.resolve(log), WriteAheadLog.FsyncPolicy.EVERY_OP);
+    }
+
+    private Main recover(String log) throws IOException {
+        return WriteAheadLog.recover(directory.resolve("missing.snapshot"), directory.resolve(log));
+    }
+
+    private static String names(List<Main.Item> items) {
+        List<String> names = new ArrayList<>();
+        for (Main.Item item : items) {
+            names.add(item.getName());
+        }
+        return names.toString();
+    }
+}
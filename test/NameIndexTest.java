@@ -0,0 +1,95 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Prefix search must return the best matches first, also after renames, restocks and removals
+class NameIndexTest
+{
+    private static final String[] WORDS = {"Apple", "apricot", "Banana", "band", "Bandana", " Cherry", "chair"};
+    private static final String[] PREFIXES = {"a", "Ap", "apr", "ban", "BAND", "c", "ch", "  cher", "apple 1", "z"};
+
+    private final Random random = new Random(21);
+
+    @Test
+    void returnsTheHighestQuantitiesFirst() {
+        Main inventory = new Main();
+        inventory.addOrUpdateItem("1", "Apple pie", "Food", 4);
+        inventory.addOrUpdateItem("2", "apple juice", "Food", 9);
+        inventory.addOrUpdateItem("3", "Apricot", "Food", 7);
+        inventory.addOrUpdateItem("4", "Banana", "Food", 20);
+        inventory.addOrUpdateItem("5", "  APPLE crumble", "Food", 1);
+
+        assertEquals("[2, 3, 1, 5]", ids(inventory.searchByNamePrefix("ap", 10)));
+        assertEquals("[2, 1]", ids(inventory.searchByNamePrefix("Apple", 2)));
+
+        // The index is live now: a restock and a rename reorder the next search
+        inventory.adjustQuantity("5", 10);
+        inventory.addOrUpdateItem("3", "Blackberry", "Food", 7);
+        assertEquals("[5, 2, 1]", ids(inventory.searchByNamePrefix("ap", 10)));
+    }
+
+    @Test
+    void matchesASortedScanUnderChurn() {
+        Main inventory = new Main();
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (int op = 0; op < 20_000; op++) {
+            String id = "SKU" + random.nextInt(800);
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                inventory.removeItem(id);
+                names.remove(id);
+                quantities.remove(id);
+            } else if (choice < 4 && names.containsKey(id)) {
+                int quantity = random.nextInt(1000);
+                inventory.adjustQuantity(id, quantity - quantities.get(id));
+                quantities.put(id, quantity);
+            } else {
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(100);
+                int quantity = random.nextInt(1000);
+                inventory.addOrUpdateItem(id, name, "Food", quantity);
+                names.put(id, name);
+                quantities.put(id, quantity);
+            }
+            if (op % 1000 == 999) {
+                for (String prefix : PREFIXES) {
+                    assertBestFirst(inventory, names, quantities, prefix, 1 + random.nextInt(30));
+                }
+            }
+        }
+    }
+
+    // Ties in quantity may come in any order, so compare the quantities and check each match
+    private static void assertBestFirst(Main inventory, Map<String, String> names, Map<String, Integer> quantities,
+            String prefix, int limit) {
+        String key = prefix.stripLeading().toLowerCase(Locale.ROOT);
+        List<Integer> expected = new ArrayList<>();
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            if (entry.getValue().strip().toLowerCase(Locale.ROOT).startsWith(key)) {
+                expected.add(quantities.get(entry.getKey()));
+            }
+        }
+        expected.sort(Comparator.reverseOrder());
+        expected = expected.subList(0, Math.min(limit, expected.size()));
+
+        List<Integer> actual = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (Main.Item item : inventory.searchByNamePrefix(prefix, limit)) {
+            assertTrue(ids.add(item.getId()), "Listed twice: " + item.getId());
+            assertEquals(names.get(item.getId()), item.getName());
+            assertTrue(NameIndex.normalize(item.getName()).startsWith(key), item.getName() + " for " + prefix);
+            actual.add(item.getQuantity());
+        }
+        assertEquals(expected, actual, prefix);
+    }
+
+    private static String ids(List<Main.Item> items) {
+        List<String> ids = new ArrayList<>();
+        for (Main.Item item : items) {
+            ids.add(item.getId());
+        }
+        return ids.toString();
+    }
+}
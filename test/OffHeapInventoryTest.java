@@ -0,0 +1,113 @@
+import java.util.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// OffHeapInventory against a map of the same items, across growth, record reuse and arena compaction
+class OffHeapInventoryTest
+{
+    private static final String[] CATEGORIES = {"Tools", "Garden", "Toys", "Books", "Food"};
+
+    private final OffHeapInventory inventory = new OffHeapInventory();
+    private final Map<String, String> expected = new HashMap<>();
+
+    @AfterEach
+    void close() {
+        inventory.close();
+    }
+
+    @Test
+    void growsPastTheFirstRecordChunkAndTheInitialTable() {
+        // 70,000 records need a second 64K-record chunk and several doublings of the 1024-slot table
+        for (int i = 0; i < 70_000; i++) {
+            put("SKU" + i, "Item " + i, CATEGORIES[i % CATEGORIES.length], i % 200);
+        }
+        assertEquals(70_000, inventory.allocatedRecords());
+        assertContents();
+
+        // Every ID is still found after the rehashes: updating them adds nothing
+        for (int i = 0; i < 70_000; i += 3) {
+            put("SKU" + i, "Item " + i, CATEGORIES[(i + 1) % CATEGORIES.length], i % 7);
+        }
+        assertEquals(70_000, inventory.allocatedRecords());
+        assertContents();
+    }
+
+    @Test
+    void reusesTheRecordsOfRemovedItems() {
+        for (int i = 0; i < 2000; i++) {
+            put("SKU" + i, "Item " + i, CATEGORIES[i % CATEGORIES.length], i);
+        }
+        for (int i = 0; i < 2000; i += 2) {
+            remove("SKU" + i);
+        }
+        assertContents();
+
+        for (int i = 0; i < 1000; i++) {
+            put("NEW" + i, "New item " + i, CATEGORIES[i % CATEGORIES.length], i);
+        }
+        assertEquals(2000, inventory.allocatedRecords());
+        assertContents();
+
+        // The survivors' probe chains are intact after the removals: re-adding them allocates nothing
+        for (int i = 1; i < 2000; i += 2) {
+            put("SKU" + i, "Item " + i, CATEGORIES[i % CATEGORIES.length], i + 1);
+        }
+        assertEquals(2000, inventory.allocatedRecords());
+        assertContents();
+    }
+
+    @Test
+    void compactsTheStringArenaAfterRenamesAndRemovals() {
+        String padding = "x".repeat(500);
+        // Each round leaves about 1 MB of dead names; 40 rounds would fill ten 4 MB chunks uncompacted
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 2000; i++) {
+                put("SKU" + i, "Gerät " + i + " rev " + round + padding,
+                        CATEGORIES[(i + round) % CATEGORIES.length], round);
+            }
+        }
+        assertTrue(inventory.stringChunks() <= 3, "String chunks: " + inventory.stringChunks());
+        assertContents();
+
+        for (int i = 0; i < 2000; i++) {
+            if (i % 4 != 0) {
+                remove("SKU" + i);
+            }
+        }
+        for (int i = 0; i < 8000; i++) {
+            put("ADD" + i, "Added " + i + padding, CATEGORIES[i % CATEGORIES.length], i);
+            remove("ADD" + i);
+        }
+        assertTrue(inventory.stringChunks() <= 3, "String chunks: " + inventory.stringChunks());
+        assertContents();
+    }
+
+    private void put(String id, String name, String category, int quantity) {
+        inventory.addOrUpdateItem(id, name, category, quantity);
+        expected.put(id, name + "|" + category + "|" + quantity);
+    }
+
+    private void remove(String id) {
+        inventory.removeItem(id);
+        expected.remove(id);
+    }
+
+    private void assertContents() {
+        assertEquals(expected.size(), inventory.size());
+        Map<String, String> actual = new HashMap<>();
+        for (String category : CATEGORIES) {
+            for (Main.Item item : inventory.getItemsByCategory(category)) {
+                String line = item.getName() + "|" + item.getCategory() + "|" + item.getQuantity();
+                assertNull(actual.put(item.getId(), line), "Listed twice: " + item.getId());
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// QuantityIndex against a sorted list of the same items, after builds and after heavy churn
+class QuantityIndexTest
+{
+    private static final Comparator<Main.Item> ASCENDING =
+            Comparator.comparingInt(Main.Item::getQuantity).thenComparing(Main.Item::getId);
+
+    private final Random random = new Random(11);
+
+    @Test
+    void rankAndSelectMatchSortedOrder() {
+        List<Main.Item> items = items(500);
+        QuantityIndex index = new QuantityIndex();
+        index.build(items.toArray(new Main.Item[0]));
+        items.sort(ASCENDING);
+
+        for (int rank = 0; rank < items.size(); rank++) {
+            assertEquals(items.get(rank), index.select(rank));
+        }
+        assertNull(index.select(-1));
+        assertNull(index.select(items.size()));
+        assertEquals(items.get(0).getQuantity(), index.lowestQuantity());
+    }
+
+    @Test
+    void countsMatchAScanForAnyBounds() {
+        List<Main.Item> items = items(400);
+        QuantityIndex index = new QuantityIndex();
+        for (Main.Item item : items) {
+            index.insert(item.quantityNode);
+        }
+
+        int[] bounds = {Integer.MIN_VALUE, -1, 0, 1, 25, 49, 50, 99, 100, Integer.MAX_VALUE};
+        for (int min : bounds) {
+            assertEquals(count(items, Integer.MIN_VALUE, min - 1L), index.countBelow(min));
+            for (int max : bounds) {
+                assertEquals(count(items, min, max), index.countBetween(min, max), min + ".." + max);
+                assertEquals(count(items, min, max), index.between(min, max).size());
+            }
+        }
+    }
+
+    @Test
+    void descendingAfterResumesFromKeysNotInTheIndex() {
+        List<Main.Item> items = items(300);
+        QuantityIndex index = new QuantityIndex();
+        index.build(items.toArray(new Main.Item[0]));
+        List<Main.Item> descending = new ArrayList<>(items);
+        descending.sort(ASCENDING.reversed());
+
+        assertEquals(descending.subList(0, 10), index.highest(10));
+        for (int quantity = -1; quantity <= 101; quantity += 17) {
+            // Between every real ID ("i..."), below and above them all
+            for (String id : new String[] {"i150x", "", "~"}) {
+                List<Main.Item> expected = new ArrayList<>();
+                for (Main.Item item : descending) {
+                    int byKey = Integer.compare(item.getQuantity(), quantity);
+                    if ((byKey != 0 ? byKey : item.getId().compareTo(id)) < 0 && expected.size() < 20) {
+                        expected.add(item);
+                    }
+                }
+                assertEquals(expected, index.descendingAfter(quantity, id, 20), quantity + "/" + id);
+            }
+        }
+    }
+
+    @Test
+    void staysBalancedAndOrderedUnderChurn() {
+        List<Main.Item> live = items(2_000);
+        QuantityIndex index = new QuantityIndex();
+        index.build(live.toArray(new Main.Item[0]));
+        int nextId = live.size();
+
+        for (int step = 0; step < 50_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 4 && !live.isEmpty()) {
+                Main.Item item = live.remove(random.nextInt(live.size()));
+                index.remove(item.quantityNode);
+            } else if (op < 8) {
+                Main.Item item = new Main.Item("i" + nextId++, "Item", "Tools", random.nextInt(100));
+                index.insert(item.quantityNode);
+                live.add(item);
+            } else if (!live.isEmpty()) {
+                Main.Item item = live.get(random.nextInt(live.size()));
+                item.setQuantity(random.nextInt(100));
+                index.update(item.quantityNode);
+            }
+            // Skewed phases: drain most of the index, then refill it with rising keys
+            if (step == 20_000) {
+                while (live.size() > 10) {
+                    index.remove(live.remove(live.size() - 1).quantityNode);
+                }
+            }
+        }
+
+        live.sort(ASCENDING);
+        assertEquals(live.size(), index.size());
+        for (int rank = 0; rank < live.size(); rank++) {
+            assertEquals(live.get(rank), index.select(rank));
+        }
+        assertEquals(live, index.lowest(live.size()));
+        double bound = Math.log(live.size() + 1) / Math.log(4.0 / 3) + 1;
+        assertTrue(index.height() <= bound, "height " + index.height() + " for " + live.size() + " items");
+    }
+
+    private List<Main.Item> items(int count) {
+        List<Main.Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Main.Item("i" + i, "Item", "Tools", random.nextInt(100)));
+        }
+        return items;
+    }
+
+    private static int count(List<Main.Item> items, long min, long max) {
+        int count = 0;
+        for (Main.Item item : items) {
+            if (item.getQuantity() >= min && item.getQuantity() <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
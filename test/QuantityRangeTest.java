@@ -0,0 +1,85 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Quantity range, count and percentile queries against a scan, overall and per category, under churn
+class QuantityRangeTest
+{
+    private static final String[] CATEGORIES = {"Tools", "Garden", "Toys"};
+    private static final int[][] RANGES = {{0, 0}, {0, 10}, {10, 20}, {25, 75}, {99, 99}, {-5, 3}, {50, 1000}, {7, 6}};
+    private static final double[] PERCENTILES = {0, 1, 25, 50, 90, 99.9, 100};
+
+    @Test
+    void matchesAScanUnderChurn() {
+        Main inventory = new Main();
+        Map<String, Main.Item> expected = new HashMap<>();
+        Random random = new Random(23);
+        for (int op = 0; op < 20_000; op++) {
+            String id = "SKU" + random.nextInt(500);
+            if (random.nextInt(8) == 0) {
+                inventory.removeItem(id);
+                expected.remove(id);
+            } else {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                int quantity = random.nextInt(100);
+                inventory.addOrUpdateItem(id, "Item " + id, category, quantity);
+                expected.put(id, new Main.Item(id, "Item " + id, category, quantity));
+            }
+            if (op % 1000 == 0 || op == 19_999) {
+                assertQueries(inventory, expected.values(), null);
+                for (String category : CATEGORIES) {
+                    List<Main.Item> items = new ArrayList<>();
+                    for (Main.Item item : expected.values()) {
+                        if (item.getCategory().equals(category)) {
+                            items.add(item);
+                        }
+                    }
+                    assertQueries(inventory, items, category);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyInventoriesHaveNoPercentile() {
+        Main inventory = new Main();
+        assertEquals(-1, inventory.getQuantityPercentile(50));
+        assertEquals(-1, inventory.getQuantityPercentile("Tools", 50));
+        assertEquals(0, inventory.countItemsInQuantityRange(0, 100));
+        assertEquals(List.of(), inventory.getItemsInQuantityRange("Tools", 0, 100));
+    }
+
+    private static void assertQueries(Main inventory, Collection<Main.Item> items, String category) {
+        List<Main.Item> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt(Main.Item::getQuantity).thenComparing(Main.Item::getId));
+        for (int[] range : RANGES) {
+            List<String> expected = new ArrayList<>();
+            for (Main.Item item : sorted) {
+                if (item.getQuantity() >= range[0] && item.getQuantity() <= range[1]) {
+                    expected.add(item.getId() + "=" + item.getQuantity());
+                }
+            }
+            List<Main.Item> listed = category == null
+                    ? inventory.getItemsInQuantityRange(range[0], range[1])
+                    : inventory.getItemsInQuantityRange(category, range[0], range[1]);
+            List<String> actual = new ArrayList<>();
+            for (Main.Item item : listed) {
+                actual.add(item.getId() + "=" + item.getQuantity());
+            }
+            String where = category + " [" + range[0] + ", " + range[1] + "]";
+            assertEquals(expected, actual, where);
+            assertEquals(expected.size(), category == null
+                    ? inventory.countItemsInQuantityRange(range[0], range[1])
+                    : inventory.countItemsInQuantityRange(category, range[0], range[1]), where);
+        }
+        for (double percentile : PERCENTILES) {
+            // Nearest rank: the smallest quantity with at least percentile% of the items at or below it
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100 * sorted.size()));
+            int expected = sorted.isEmpty() ? -1 : sorted.get(rank - 1).getQuantity();
+            assertEquals(expected, category == null
+                    ? inventory.getQuantityPercentile(percentile)
+                    : inventory.getQuantityPercentile(category, percentile), category + " p" + percentile);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// getTopKPerCategory must order tied quantities like getTopKItems: quantity, then ID, both descending
+class TopKPerCategoryTest
+{
+    @Test
+    void tiesBreakByIdLikeGetTopKItems() {
+        Main inventory = new Main();
+        for (int i = 0; i < 6; i++) {
+            inventory.addOrUpdateItem("a" + i, "Item " + i, "Tools", i < 4 ? 50 : 10);
+        }
+        inventory.addOrUpdateItem("b", "Spare", "Tools", 70);
+
+        assertEquals("[b, a3, a2, a1]", ids(inventory.getTopKItems(4)));
+        assertEquals("[b, a3, a2, a1]", ids(inventory.getTopKPerCategory(4).get("Tools")));
+
+        // Still ordered once the index is maintained rather than freshly built
+        inventory.adjustQuantity("a0", 1);
+        inventory.adjustQuantity("a0", -1);
+        inventory.addOrUpdateItem("a9", "Item 9", "Tools", 50);
+        assertEquals(ids(inventory.getTopKItems(5)), ids(inventory.getTopKPerCategory(5).get("Tools")));
+    }
+
+    @Test
+    void tiesBreakByIdAcrossManyCategories() {
+        Main inventory = new Main();
+        int categories = 300; // Enough to rank the categories in parallel
+        for (int c = 0; c < categories; c++) {
+            for (int i = 0; i < 5; i++) {
+                inventory.addOrUpdateItem(c + "-" + i, "Item " + i, "Category-" + c, 20);
+            }
+        }
+
+        Map<String, List<Main.Item>> top = inventory.getTopKPerCategory(3);
+        assertEquals(categories, top.size());
+        for (int c = 0; c < categories; c++) {
+            assertEquals("[" + c + "-4, " + c + "-3, " + c + "-2]", ids(top.get("Category-" + c)));
+        }
+    }
+
+    private static String ids(List<Main.Item> items) {
+        List<String> ids = new ArrayList<>();
+        for (Main.Item item : items) {
+            ids.add(item.getId());
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Typo-tolerant search: ranking by trigram similarity, and slots that stay right across renames and removals
+class TrigramIndexTest
+{
+    private static final String[] WORDS = {"wireless", "wired", "mouse", "keyboard", "monitor", "cable", "usb", "hub"};
+    private static final String[] QUERIES = {"wireles mouse", "keybord", "usb hub", "monitr cable", "mouse", "hb"};
+
+    private final Random random = new Random(22);
+
+    @Test
+    void ranksCloserNamesFirstThenHigherQuantity() {
+        TrigramIndex index = new TrigramIndex();
+        Main.Item exactLow = item("1", "Wireless mouse", 5);
+        Main.Item exactHigh = item("2", "wireless  MOUSE", 9);
+        Main.Item near = item("3", "Wired mouse", 50);
+        Main.Item far = item("4", "Mouse pad", 80);
+        Main.Item unrelated = item("5", "Keyboard", 100);
+        for (Main.Item item : List.of(exactLow, exactHigh, near, far, unrelated)) {
+            index.update(item);
+        }
+
+        assertEquals(List.of(exactHigh, exactLow, near, far), index.search("wireles mouse", 10));
+        assertEquals(List.of(exactHigh, exactLow), index.search("wireless mouse", 2));
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void renamedAndRemovedItemsKeepTheirSlotsStraight() {
+        TrigramIndex index = new TrigramIndex();
+        List<Main.Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Main.Item item = item("SKU" + i, "Widget " + i, i);
+            items.add(item);
+            index.update(item);
+        }
+
+        // A rename keeps the slot but moves the item to its new trigrams
+        Main.Item renamed = items.get(7);
+        int slot = renamed.trigramSlot;
+        renamed.setName("Gizmo deluxe");
+        index.update(renamed);
+        assertEquals(slot, renamed.trigramSlot);
+        assertEquals(List.of(renamed), index.search("gizmo deluxe", 5));
+        assertFalse(index.search("widget 7", 100).contains(renamed));
+
+        // Freed slots go to new items, and searches find the newcomers rather than the removed items
+        Set<Integer> freed = new HashSet<>();
+        for (int i = 0; i < 100; i += 3) {
+            Main.Item removed = items.get(i);
+            freed.add(removed.trigramSlot);
+            index.remove(removed);
+            assertEquals(-1, removed.trigramSlot);
+        }
+        for (int i = 0; i < freed.size(); i++) {
+            Main.Item added = item("NEW" + i, "Sprocket " + i, i);
+            index.update(added);
+            assertTrue(freed.contains(added.trigramSlot), "Slot " + added.trigramSlot);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            assertFalse(index.search("widget " + i, 100).contains(items.get(i)));
+        }
+        assertEquals("Sprocket 12", index.search("sprocket 12", 1).get(0).getName());
+        assertEquals("Widget 13", index.search("widget 13", 1).get(0).getName());
+    }
+
+    @Test
+    void matchesAScoredScanUnderChurn() {
+        Main inventory = new Main();
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (int op = 0; op < 10_000; op++) {
+            String id = "SKU" + random.nextInt(400);
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                inventory.removeItem(id);
+                names.remove(id);
+                quantities.remove(id);
+            } else {
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+                int quantity = random.nextInt(20);
+                inventory.addOrUpdateItem(id, name, "Parts", quantity);
+                names.put(id, name);
+                quantities.put(id, quantity);
+            }
+            if (op % 500 == 499) {
+                for (String query : QUERIES) {
+                    assertRanked(inventory, names, quantities, query, 1 + random.nextInt(40));
+                }
+            }
+        }
+    }
+
+    // Items tied on both similarity and quantity may come in any order, so compare those two keys
+    private static void assertRanked(Main inventory, Map<String, String> names, Map<String, Integer> quantities,
+            String query, int limit) {
+        long[] queryGrams = TrigramIndex.trigrams(query);
+        List<String> expected = new ArrayList<>();
+        List<double[]> keys = new ArrayList<>();
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            double similarity = similarity(queryGrams, TrigramIndex.trigrams(entry.getValue()));
+            if (similarity >= TrigramIndex.MIN_SIMILARITY) {
+                keys.add(new double[] {similarity, quantities.get(entry.getKey())});
+            }
+        }
+        keys.sort(Comparator.<double[]>comparingDouble(k -> k[0]).thenComparingDouble(k -> k[1]).reversed());
+        for (double[] key : keys.subList(0, Math.min(limit, keys.size()))) {
+            expected.add(key[0] + "/" + (int) key[1]);
+        }
+
+        List<String> actual = new ArrayList<>();
+        for (Main.Item item : inventory.searchByName(query, limit)) {
+            assertEquals(names.get(item.getId()), item.getName());
+            double similarity = similarity(queryGrams, TrigramIndex.trigrams(item.getName()));
+            actual.add(similarity + "/" + item.getQuantity());
+        }
+        assertEquals(expected, actual, query);
+    }
+
+    private static double similarity(long[] a, long[] b) {
+        int shared = 0;
+        for (long gram : a) {
+            if (Arrays.binarySearch(b, gram) >= 0) {
+                shared++;
+            }
+        }
+        return 2.0 * shared / (a.length + b.length);
+    }
+
+    private static Main.Item item(String id, String name, int quantity) {
+        return new Main.Item(id, name, "Parts", quantity);
+    }
+}
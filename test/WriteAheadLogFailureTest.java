@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A write-ahead log that fails partway through a batch must leave the inventory as it was.
+// The log is closed up front, so records only fail once its buffer has to be written out; a row
+// with a name larger than the buffer forces that write in the middle of the batch.
+class WriteAheadLogFailureTest
+{
+    private static final String HUGE_NAME = "x".repeat(1 << 17);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void failedBatchLeavesInventoryUnchanged() throws IOException {
+        Main inventory = inventory();
+        String before = InventoryState.of(inventory);
+
+        inventory.setWriteAheadLog(closedLog());
+        List<ItemUpdate> rows = List.of(
+                new ItemUpdate("1", "Laptop", "Electronics", 99), // Update in place
+                new ItemUpdate("2", "Chair", "Electronics", 7), // Category change
+                new ItemUpdate("9", "Desk", "Furniture", 12), // Addition
+                new ItemUpdate("3", HUGE_NAME, "Furniture", 1)); // The log fails here
+        assertThrows(UncheckedIOException.class, () -> inventory.addOrUpdateItems(rows));
+
+        inventory.setWriteAheadLog(null);
+        InventoryState.assertMatches(before, inventory);
+    }
+
+    @Test
+    void failedParallelMergeLeavesInventoryUnchanged() throws IOException {
+        Main inventory = inventory();
+        String before = InventoryState.of(inventory);
+
+        Main other = new Main();
+        for (int i = 1; i <= 40; i++) {
+            other.addOrUpdateItem(Integer.toString(i), "Item " + i, i % 2 == 0 ? "Electronics" : "Garden", 50 + i);
+        }
+        other.addOrUpdateItem("20", HUGE_NAME, "Garden", 5); // The log fails on this record
+        inventory.setWriteAheadLog(closedLog());
+        assertThrows(UncheckedIOException.class, () -> inventory.mergeInventoryParallel(other, MergePolicy.SUM));
+
+        inventory.setWriteAheadLog(null);
+        InventoryState.assertMatches(before, inventory);
+    }
+
+    private static Main inventory() {
+        Main inventory = new Main();
+        inventory.addOrUpdateItem("1", "Laptop", "Electronics", 10);
+        inventory.addOrUpdateItem("2", "Chair", "Furniture", 3);
+        inventory.addOrUpdateItem("3", "Table", "Furniture", 40);
+        inventory.addOrUpdateItem("4", "Phone", "Electronics", 25);
+        return inventory;
+    }
+
+    private WriteAheadLog closedLog() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory.resolve("inventory.log"), WriteAheadLog.FsyncPolicy.NONE);
+        log.close();
+        return log;
+    }
+}
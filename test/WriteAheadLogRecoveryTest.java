@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Replay of the write-ahead log: over a checkpoint, past a damaged tail, and under each fsync
+// policy. A crash is simulated by copying the log file while the log is still open, so only the
+// bytes that reached the file survive.
+class WriteAheadLogRecoveryTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheLogOverTheLastCheckpoint() throws IOException {
+        Path log = directory.resolve("inventory.log");
+        Path snapshot = directory.resolve("inventory.snap");
+        Main inventory = new Main();
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.EVERY_OP)) {
+            inventory.setWriteAheadLog(wal);
+            inventory.addOrUpdateItem("1", "Laptop", "Electronics", 10);
+            inventory.addOrUpdateItem("2", "Chair", "Furniture", 3);
+            inventory.setCategoryRestockThreshold("Furniture", 5);
+            wal.checkpoint(inventory, snapshot);
+            assertEquals(0, Files.size(log));
+
+            inventory.adjustQuantity("1", 7);
+            inventory.removeItem("2");
+            inventory.addOrUpdateItem("3", "Lamp", "Furniture", 4);
+            inventory.setItemRestockThreshold("3", 2);
+            inventory.setWriteAheadLog(null);
+        }
+
+        InventoryState.assertMatches(InventoryState.of(inventory), WriteAheadLog.recover(snapshot, log));
+    }
+
+    @Test
+    void dropsATornFinalFrame() throws IOException {
+        Path log = directory.resolve("inventory.log");
+        long[] ends = writeThree(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(ends[2] - 3); // The last frame lost its final bytes
+        }
+
+        assertRecovered(log, ends[1], "1", "2");
+    }
+
+    @Test
+    void dropsAFinalFrameWithABadChecksum() throws IOException {
+        Path log = directory.resolve("inventory.log");
+        long[] ends = writeThree(log);
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[(int) ends[2] - 1] ^= 0x01; // Last byte of the last payload
+        Files.write(log, bytes);
+
+        assertRecovered(log, ends[1], "1", "2");
+    }
+
+    @Test
+    void everyOpWritesEachRecordBeforeReturning() throws IOException {
+        Path log = directory.resolve("inventory.log");
+        Main inventory = new Main();
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.EVERY_OP)) {
+            inventory.setWriteAheadLog(wal);
+            for (int i = 1; i <= 3; i++) {
+                inventory.addOrUpdateItem(Integer.toString(i), "Item " + i, "Tools", i);
+                assertEquals(i, crashCopy(log).items().size());
+            }
+            inventory.setWriteAheadLog(null);
+        }
+    }
+
+    @Test
+    void groupCommitWritesRecordsOncePerBatch() throws IOException {
+        Path log = directory.resolve("inventory.log");
+        Main inventory = new Main();
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.GROUP_COMMIT, 3, 60_000)) {
+            inventory.setWriteAheadLog(wal);
+            inventory.addOrUpdateItem("1", "Item 1", "Tools", 1);
+            inventory.addOrUpdateItem("2", "Item 2", "Tools", 2);
+            assertEquals(0, crashCopy(log).items().size()); // Acknowledged but not yet durable
+            inventory.addOrUpdateItem("3", "Item 3", "Tools", 3);
+            assertEquals(3, crashCopy(log).items().size());
+            inventory.setWriteAheadLog(null);
+        }
+    }
+
+    @Test
+    void groupCommitWritesAWaitingRecordAfterTheInterval() throws IOException, InterruptedException {
+        Path log = directory.resolve("inventory.log");
+        Main inventory = new Main();
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.GROUP_COMMIT, 1_000, 20)) {
+            inventory.setWriteAheadLog(wal);
+            inventory.addOrUpdateItem("1", "Item 1", "Tools", 1);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (Files.size(log) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, crashCopy(log).items().size());
+            inventory.setWriteAheadLog(null);
+        }
+    }
+
+    // Log three puts and return the file length after each
+    private static long[] writeThree(Path log) throws IOException {
+        long[] ends = new long[3];
+        Main inventory = new Main();
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.EVERY_OP)) {
+            inventory.setWriteAheadLog(wal);
+            for (int i = 0; i < 3; i++) {
+                inventory.addOrUpdateItem(Integer.toString(i + 1), "Item " + (i + 1), "Tools", 10);
+                ends[i] = Files.size(log);
+            }
+            inventory.setWriteAheadLog(null);
+        }
+        return ends;
+    }
+
+    // Recovery keeps only the given items, and reopening cuts the log to its intact prefix so
+    // that new records follow it and replay in full
+    private void assertRecovered(Path log, long intactBytes, String... ids) throws IOException {
+        Main recovered = WriteAheadLog.recover(directory.resolve("none.snap"), log);
+        assertEquals(List.of(ids), ids(recovered));
+
+        try (WriteAheadLog wal = WriteAheadLog.open(log, WriteAheadLog.FsyncPolicy.EVERY_OP)) {
+            assertEquals(intactBytes, Files.size(log));
+            recovered.setWriteAheadLog(wal);
+            recovered.addOrUpdateItem("9", "Item 9", "Tools", 10);
+            recovered.setWriteAheadLog(null);
+        }
+        List<String> expected = new ArrayList<>(List.of(ids));
+        expected.add("9");
+        assertEquals(expected, ids(WriteAheadLog.recover(directory.resolve("none.snap"), log)));
+    }
+
+    private static List<String> ids(Main inventory) {
+        List<String> ids = new ArrayList<>();
+        for (Main.Item item : inventory.items()) {
+            ids.add(item.getId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // Inventory recovered from the bytes the log file holds right now
+    private Main crashCopy(Path log) throws IOException {
+        Path copy = directory.resolve("crash-" + System.nanoTime() + ".log");
+        Files.copy(log, copy);
+        return WriteAheadLog.recover(directory.resolve("none.snap"), copy);
+    }
+}